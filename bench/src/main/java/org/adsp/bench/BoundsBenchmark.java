@@ -0,0 +1,36 @@
+package org.adsp.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computation of the objective bounds of the instances.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoundsBenchmark {
+
+    @Benchmark
+    public int makespanLB(InstanceState state) {
+        return state.instance.makespanLB();
+    }
+
+    @Benchmark
+    public int costLB(InstanceState state) {
+        return state.instance.costLB();
+    }
+
+    @Benchmark
+    public int makespanUB(InstanceState state) {
+        return state.instance.makespanUB();
+    }
+
+    @Benchmark
+    public int costUB(InstanceState state) {
+        return state.instance.costUB();
+    }
+}
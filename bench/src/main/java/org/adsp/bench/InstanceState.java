@@ -0,0 +1,66 @@
+package org.adsp.bench;
+
+import org.adsp.datamodel.Instance;
+import org.adsp.datamodel.Log;
+import org.adsp.datamodel.Solution;
+import org.adsp.tools.json.JsonReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+
+/**
+ * Instance, solution and log files of one of the anonymized instances, loaded once per trial.
+ * Files are looked up from the root of the repository, given by the {@code adsp.root} system property
+ * (the parent directory by default, so that benchmarks can be run from the bench folder).
+ */
+@State(Scope.Benchmark)
+public class InstanceState {
+    @Param({
+            "B737NG-600-01-Anon", "B737NG-600-02-Anon", "B737NG-600-03-Anon", "B737NG-600-04-Anon",
+            "B737NG-600-05-Anon", "B737NG-600-06-Anon", "B737NG-600-07-Anon", "B737NG-600-08-Anon",
+            "B737NG-600-09-Anon", "B737NG-600-10-Anon", "B737NG-600-20-Anon", "B737NG-600-30-Anon",
+            "B737NG-600-40-Anon", "B737NG-600-50-Anon", "B737NG-600-60-Anon", "B737NG-600-70-Anon",
+            "B737NG-600-80-Anon", "B737NG-600-90-Anon", "B737NG-600-Full-Anon"
+    })
+    public String name;
+
+    public String instanceFile;
+    public String solutionFile;
+    public String logFile;
+    public File outputFile; //Temporary file used by the writing benchmarks.
+
+    public Instance instance;
+    public Solution solution;
+    public Log log;
+
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        String root = System.getProperty("adsp.root", "..");
+        instanceFile = root + "/data/json/anonymized/" + name + ".json";
+        solutionFile = root + "/results/LexicographicalSearch/Auto/solutions/" + name + ".json";
+        logFile = root + "/results/LexicographicalSearch/Auto/logs/" + name + ".json";
+        outputFile = Files.createTempFile(name, ".json").toFile();
+
+        //The readers print each file read, which would flood the benchmark output:
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        instance = JsonReader.readInstanceFile(instanceFile);
+        solution = JsonReader.readSolutionFile(solutionFile);
+        log = JsonReader.readLogFile(logFile);
+        if(instance.id().equals("error") || solution.instance().id().equals("error") || log.instance().equals("error"))
+            throw new IllegalStateException("Unable to read the files of " + name + " from " + root);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(stdout);
+        outputFile.delete();
+    }
+}
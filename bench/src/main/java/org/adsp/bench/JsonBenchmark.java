@@ -0,0 +1,56 @@
+package org.adsp.bench;
+
+import org.adsp.datamodel.Instance;
+import org.adsp.datamodel.Log;
+import org.adsp.datamodel.Solution;
+import org.adsp.tools.json.JsonReader;
+import org.adsp.tools.json.JsonWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and writing of instance, solution and log files.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Benchmark
+    public Instance readInstance(InstanceState state) {
+        return JsonReader.readInstanceFile(state.instanceFile);
+    }
+
+    @Benchmark
+    public Solution readSolution(InstanceState state) {
+        return JsonReader.readSolutionFile(state.solutionFile);
+    }
+
+    @Benchmark
+    public Log readLog(InstanceState state) {
+        return JsonReader.readLogFile(state.logFile);
+    }
+
+    @Benchmark
+    public boolean writeInstance(InstanceState state) {
+        return JsonWriter.writeToFileAtomic(state.instance, state.outputFile, true);
+    }
+
+    @Benchmark
+    public boolean writeSolution(InstanceState state) {
+        return JsonWriter.writeToFileAtomic(state.solution, state.outputFile, true);
+    }
+
+    @Benchmark
+    public boolean writeSolutionCompact(InstanceState state) {
+        return JsonWriter.writeToFileAtomic(state.solution, state.outputFile, false);
+    }
+
+    @Benchmark
+    public String solutionToString(InstanceState state) {
+        return JsonWriter.objectToString(state.solution);
+    }
+}
@@ -0,0 +1,60 @@
+package org.adsp.bench;
+
+import org.adsp.datamodel.Log;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analytics computed on the search logs, as done when aggregating the results.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogBenchmark {
+
+    @Benchmark
+    public void bestValues(InstanceState state, Blackhole bh) {
+        Log log = state.log;
+        bh.consume(log.bestMakespan());
+        bh.consume(log.bestCost());
+        bh.consume(log.timeToBestMakespan());
+        bh.consume(log.timeToBestCost());
+    }
+
+    @Benchmark
+    public void firstValues(InstanceState state, Blackhole bh) {
+        Log log = state.log;
+        bh.consume(log.firstMakespan());
+        bh.consume(log.firstCost());
+        bh.consume(log.timeToFirstSol());
+    }
+
+    @Benchmark
+    public void secondPhase(InstanceState state, Blackhole bh) {
+        Log log = state.log;
+        double start = log.secondSearchStart();
+        bh.consume(log.bestCostFrom(start));
+        bh.consume(log.timeToBestCostFrom(start));
+        bh.consume(log.firstCostFrom(start));
+    }
+
+    @Benchmark
+    public void anytimeMetrics(InstanceState state, Blackhole bh) {
+        Log log = state.log;
+        bh.consume(log.makespanPrimalIntegral(60));
+        bh.consume(log.timeToMakespan(log.bestMakespan()));
+        bh.consume(log.makespanGapAt(10));
+    }
+
+    @Benchmark
+    public void solverStats(InstanceState state, Blackhole bh) {
+        Log log = state.log;
+        bh.consume(log.gapOverTime());
+        bh.consume(log.failsPerSecondOverTime());
+        bh.consume(log.peakMemory());
+    }
+}
@@ -0,0 +1,129 @@
+package org.adsp.bench;
+
+import org.adsp.cpoptimizer.SolutionBuffer;
+import org.adsp.datamodel.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extraction of incumbents into a {@link SolutionBuffer} and building of the solution records, with a stub solver
+ * that serves the values of the best known solution of the instance.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolutionBufferBenchmark {
+
+    /**
+     * Optional activities laid out as in the CP Optimizer model: one activity for each requirement a resource can
+     * fulfill, followed by the unavailabilities of the resource.
+     */
+    @State(Scope.Benchmark)
+    public static class StubSolver implements SolutionBuffer.Reader {
+        private int[] opStarts;
+        private int[] opEnds;
+        private boolean[][] present;
+        private int[][] starts;
+        private int[][] ends;
+
+        private int makespan;
+        private int cost;
+        private SolutionBuffer buffer;
+        private Instance instance;
+
+        @Setup(Level.Trial)
+        public void setup(InstanceState state) {
+            instance = state.instance;
+            Solution sol = state.solution;
+            makespan = sol.makespan();
+            cost = sol.cost();
+
+            int nOps = instance.operations().length;
+            opStarts = new int[nOps];
+            opEnds = new int[nOps];
+            for(Activity act : sol.activities()){
+                opStarts[act.operation()] = act.start();
+                opEnds[act.operation()] = act.end();
+            }
+
+            HashMap<String, Assignment> assignments = new HashMap<>();
+            for(Assignment ass : sol.assignments())
+                assignments.put(ass.operation() + "," + ass.requirement() + "," + ass.resource(), ass);
+
+            int nRes = instance.resources().length;
+            int[][] resOps = new int[nRes][];
+            int[][] resReqs = new int[nRes][];
+            present = new boolean[nRes][];
+            starts = new int[nRes][];
+            ends = new int[nRes][];
+            CompiledInstance compiled = instance.compiled();
+            for(int r = 0; r < nRes; r++){
+                ArrayList<int[]> acts = new ArrayList<>(); //(operation, requirement) of each activity
+                for(int o = 0; o < nOps; o++){
+                    for(int j = 0; j < compiled.nRequirements(o); j++){
+                        if(compiled.isCompatible(compiled.requirement(o, j), r)) acts.add(new int[]{o, j});
+                    }
+                }
+                for(int u = 0; u < compiled.nUnavailable(r); u++) acts.add(new int[]{-1, 0});
+                resOps[r] = new int[acts.size()];
+                resReqs[r] = new int[acts.size()];
+                present[r] = new boolean[acts.size()];
+                starts[r] = new int[acts.size()];
+                ends[r] = new int[acts.size()];
+                for(int k = 0; k < acts.size(); k++){
+                    resOps[r][k] = acts.get(k)[0];
+                    resReqs[r][k] = acts.get(k)[1];
+                    Assignment ass = assignments.get(acts.get(k)[0] + "," + acts.get(k)[1] + "," + r);
+                    if(ass != null){
+                        present[r][k] = true;
+                        starts[r][k] = ass.start();
+                        ends[r][k] = ass.end();
+                    }
+                }
+            }
+            buffer = new SolutionBuffer(nOps, resOps, resReqs);
+        }
+
+        @Override
+        public int start(int op) {
+            return opStarts[op];
+        }
+
+        @Override
+        public int end(int op) {
+            return opEnds[op];
+        }
+
+        @Override
+        public boolean isPresent(int res, int act) {
+            return present[res][act];
+        }
+
+        @Override
+        public int start(int res, int act) {
+            return starts[res][act];
+        }
+
+        @Override
+        public int end(int res, int act) {
+            return ends[res][act];
+        }
+    }
+
+    @Benchmark
+    public SolutionBuffer extract(StubSolver solver) throws Exception {
+        solver.buffer.extract(solver, solver.makespan, solver.cost);
+        return solver.buffer;
+    }
+
+    @Benchmark
+    public Solution extractAndBuild(StubSolver solver) throws Exception {
+        solver.buffer.extract(solver, solver.makespan, solver.cost);
+        return solver.buffer.toSolution(solver.instance);
+    }
+}
@@ -9,6 +9,9 @@ module org.cpvisu {
     requires com.fasterxml.jackson.annotation;
     requires com.fasterxml.jackson.databind;
     requires org.apache.commons.io;
+    requires jdk.jfr;
+    requires java.desktop;
+    requires jdk.httpserver;
 
     requires cpoptimizer;
 
@@ -16,6 +19,10 @@ module org.cpvisu {
     exports org.adsp.tools;
     opens org.adsp.datamodel to com.fasterxml.jackson.databind;
     opens org.adsp.tools to com.fasterxml.jackson.databind;
+    exports org.adsp.tools.jfr;
+    exports org.adsp.tools.render;
+    exports org.adsp.service;
+    opens org.adsp.service to com.fasterxml.jackson.databind;
 
     exports org.adsp.visu.runnable;
     opens org.adsp.visu.runnable to javafx.fxml;
@@ -1,15 +1,33 @@
 package org.adsp;
 
 import ilog.cp.IloCP;
+import org.adsp.cpoptimizer.AbstractOptionalIntervalModel;
 import org.adsp.cpoptimizer.OptionalIntervalModel;
 import org.adsp.cpoptimizer.OptionalIntervalModelRelaxed;
+import org.adsp.datamodel.Checkpoint;
 import org.adsp.datamodel.Instance;
+import org.adsp.datamodel.LogEntry;
 import org.adsp.datamodel.Solution;
+import org.adsp.tools.DataFiles;
+import org.adsp.tools.IncumbentStore;
+import org.adsp.tools.InstanceExtractor;
+import org.adsp.tools.InstanceGenerator;
+import org.adsp.tools.ResultsStats;
+import org.adsp.tools.ScheduleRepair;
 import org.adsp.tools.json.JsonReader;
+import org.adsp.tools.render.SolutionRenderer;
+import org.adsp.tools.json.JsonWriter;
+import org.adsp.service.SolveService;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
 
 public class Launcher {
+    public static final List<String> MODELS = List.of("CPOOptInterModel", "CPOOptInterModelRelax");
+
     public static void main(String[] args){
-        //Arguments: instance/sol model [-st -sil -t <time limit> -t2 <2nd time limit> -f <fail limit> -s <search> -n <n workers> -out <output path>]
+        //Arguments: instance/sol/results folders model [-st -sil -t <time limit> -t2 <2nd time limit> -f <fail limit> -s <search> -n <n workers> -out <output path> -cpt <checkpoint interval> -resume <checkpoint dir> -si <solution interval> -ref -size <n operations> -seed <seed> -cards <card1,card2,...> -format <svg|png> -slots <n solver slots> -pool <pool memory> -store <incumbent store> -tr <relaxed time limit>]
         //Reading parameters:
         if(args.length < 2){
             System.out.println("No instance file path or model provided!");
@@ -25,6 +43,18 @@ public class Launcher {
         String search = "Auto";
         int nWorkers = 1;
         String out = "default/";
+        double checkpointInterval = 0;
+        String resume = null;
+        double solutionInterval = 0;
+        boolean solutionsByReference = false;
+        int size = 0;
+        long seed = 0;
+        String cards = null;
+        String format = "svg";
+        int nSlots = 1;
+        long poolMemory = 2048;
+        String store = null; //Incumbent store, disabled by default.
+        double relaxedTimeLimit = 10;
 
         String model = args[1];
 
@@ -64,13 +94,77 @@ public class Launcher {
                     out = args[i+1];
                     i+=2;
                     break;
+                case "-cpt":
+                    checkpointInterval = Double.parseDouble(args[i+1]);
+                    i+=2;
+                    break;
+                case "-resume":
+                    resume = args[i+1];
+                    i+=2;
+                    break;
+                case "-ref":
+                    solutionsByReference = true;
+                    i++;
+                    break;
+                case "-si":
+                    solutionInterval = Double.parseDouble(args[i+1]);
+                    i+=2;
+                    break;
+                case "-size":
+                    size = Integer.parseInt(args[i+1]);
+                    i+=2;
+                    break;
+                case "-seed":
+                    seed = Long.parseLong(args[i+1]);
+                    i+=2;
+                    break;
+                case "-cards":
+                    cards = args[i+1];
+                    i+=2;
+                    break;
+                case "-format":
+                    format = args[i+1];
+                    i+=2;
+                    break;
+                case "-slots":
+                    nSlots = Integer.parseInt(args[i+1]);
+                    i+=2;
+                    break;
+                case "-pool":
+                    poolMemory = Long.parseLong(args[i+1]);
+                    i+=2;
+                    break;
+                case "-store":
+                    store = args[i+1];
+                    i+=2;
+                    break;
+                case "-tr":
+                    relaxedTimeLimit = Double.parseDouble(args[i+1]);
+                    i+=2;
+                    break;
                 default:
                     System.out.println("Argument " + arg + " is not recognized and will be ignored.");
                     i++;
             }
         }
-        if(startSol) sol = JsonReader.readSolutionFile(args[0]);
-        Instance instance = startSol ? sol.instance() : JsonReader.readInstanceFile(args[0]);
+        if(model.equals("Convert")){
+            DataFiles.convert(args[0], out);
+            return;
+        }
+        if(model.equals("Stats")){
+            new ResultsStats(Arrays.asList(args[0].split(","))).writeToFile(out.endsWith(".csv") ? out : null);
+            return;
+        }
+        if(model.equals("Render")){
+            SolutionRenderer.render(args[0], out, format);
+            return;
+        }
+        if(model.equals("Serve")){
+            SolveService.serve(args[0], nSlots, out, poolMemory);
+            return;
+        }
+        if(startSol) sol = DataFiles.readSolutionFile(args[0]);
+        Instance instance = startSol ? sol.instance() : DataFiles.readInstanceFile(args[0]);
         if(instance == null || instance.id().equals("error")){
             return;
         }
@@ -79,129 +173,187 @@ public class Launcher {
             return;
         }
 
+        AbstractOptionalIntervalModel solver;
         switch(model){
             case "CPOOptInterModel":
-                OptionalIntervalModel solver = new OptionalIntervalModel(instance);
-                if(startSol){
-                    solver.setSolution(sol);
-                    solver.setStartSol(true);
-                }
-                if(timeLimit < Integer.MAX_VALUE) solver.setTimeLimit(timeLimit);
-                if(timeLimit2 < Integer.MAX_VALUE) solver.setSecondTimeLimit(timeLimit2);
-                if(failLimit < Integer.MAX_VALUE) solver.setFailLimit(failLimit);
-                if(nWorkers != 4) solver.setWorkers(nWorkers);
-                solver.setOutputPath(out + search + "/");
-                switch(search){
-                    case "LEX-DF":
-                        solver.setSearchType(IloCP.ParameterValues.DepthFirst);
-                        solver.lexSearch();
-                        break;
-                    case "LEX-FD":
-                        solver.setFailureDirected(true);
-                        solver.lexSearch();
-                        break;
-                    case "ILEX-AUTO":
-                        solver.invertedLexSearch();
-                        break;
-                    case "ILEX-DF":
-                        solver.setSearchType(IloCP.ParameterValues.DepthFirst);
-                        solver.invertedLexSearch();
-                        break;
-                    case "ILEX-FD":
-                        solver.setFailureDirected(true);
-                        solver.invertedLexSearch();
-                        break;
-                    case "MK-AUTO":
-                        solver.makespanSearch();
-                        break;
-                    case "MK-DF":
-                        solver.setSearchType(IloCP.ParameterValues.DepthFirst);
-                        solver.makespanSearch();
-                        break;
-                    case "MK-FD":
-                        solver.setFailureDirected(true);
-                        solver.makespanSearch();
-                        break;
-                    case "CST-AUTO":
-                        solver.costSearch();
-                        break;
-                    case "CST-DF":
-                        solver.setSearchType(IloCP.ParameterValues.DepthFirst);
-                        solver.costSearch();
-                        break;
-                    case "CST-FD":
-                        solver.setFailureDirected(true);
-                        solver.costSearch();
-                        break;
-                    default:
-                        solver.lexSearch();
-                }
-                solver.close();
-                break;
             case "CPOOptInterModelRelax":
-                OptionalIntervalModelRelaxed solverRelaxed = new OptionalIntervalModelRelaxed(instance);
-                if(startSol){
-                    solverRelaxed.setSolution(sol);
-                    solverRelaxed.setStartSol(true);
-                }
-                if(timeLimit < Integer.MAX_VALUE) solverRelaxed.setTimeLimit(timeLimit);
-                if(timeLimit2 < Integer.MAX_VALUE) solverRelaxed.setSecondTimeLimit(timeLimit2);
-                if(failLimit < Integer.MAX_VALUE) solverRelaxed.setFailLimit(failLimit);
-                if(nWorkers != 4) solverRelaxed.setWorkers(nWorkers);
-                solverRelaxed.setOutputPath(out + search + "/");
-                switch(search){
-                    case "LEX-DF":
-                        solverRelaxed.setSearchType(IloCP.ParameterValues.DepthFirst);
-                        solverRelaxed.lexSearch();
-                        break;
-                    case "LEX-FD":
-                        solverRelaxed.setFailureDirected(true);
-                        solverRelaxed.lexSearch();
-                        break;
-                    case "ILEX-AUTO":
-                        solverRelaxed.invertedLexSearch();
-                        break;
-                    case "ILEX-DF":
-                        solverRelaxed.setSearchType(IloCP.ParameterValues.DepthFirst);
-                        solverRelaxed.invertedLexSearch();
-                        break;
-                    case "ILEX-FD":
-                        solverRelaxed.setFailureDirected(true);
-                        solverRelaxed.invertedLexSearch();
-                        break;
-                    case "MK-AUTO":
-                        solverRelaxed.makespanSearch();
-                        break;
-                    case "MK-DF":
-                        solverRelaxed.setSearchType(IloCP.ParameterValues.DepthFirst);
-                        solverRelaxed.makespanSearch();
-                        break;
-                    case "MK-FD":
-                        solverRelaxed.setFailureDirected(true);
-                        solverRelaxed.makespanSearch();
-                        break;
-                    case "CST-AUTO":
-                        solverRelaxed.costSearch();
-                        break;
-                    case "CST-DF":
-                        solverRelaxed.setSearchType(IloCP.ParameterValues.DepthFirst);
-                        solverRelaxed.costSearch();
-                        break;
-                    case "CST-FD":
-                        solverRelaxed.setFailureDirected(true);
-                        solverRelaxed.costSearch();
-                        break;
-                    default:
-                        solverRelaxed.lexSearch();
-                }
-                solverRelaxed.close();
+                solver = createSolver(model, instance);
+                break;
+            case "CPOPipeline":
+                solver = createSolver("CPOOptInterModel", instance);
                 break;
             case "InstanceStats":
                 System.out.println("Characteristics of instance " + instance.name());
                 System.out.println("Number of operations " + instance.nOps());
                 System.out.println("Makespan lower bound " + instance.makespanLB());
                 System.out.println("Cost lower bound " + instance.costLB());
+                return;
+            case "InstanceGen":
+                if(size <= 0){
+                    System.out.println("No size provided for the generated instance!");
+                    return;
+                }
+                writeInstance(new InstanceGenerator(instance).generate(size, seed), out);
+                return;
+            case "InstanceSubset":
+                InstanceExtractor extractor = new InstanceExtractor(instance);
+                if(cards != null) writeInstance(extractor.extract(Arrays.asList(cards.split(","))), out);
+                else if(size > 0) writeInstance(extractor.extract(size, seed), out);
+                else System.out.println("No size or cards provided for the sub-instance!");
+                return;
+            default:
+                System.out.println("Model " + model + " is not recognized!");
+                return;
+        }
+
+        if(resume != null){
+            Checkpoint checkpoint = JsonReader.readCheckpointFile(resume + "/" + instance.name() + ".json");
+            if(checkpoint.instance().equals("error")){
+                solver.close();
+                return;
+            }
+            if(checkpoint.isFor(instance)) solver.resume(checkpoint);
+            else {
+                System.out.println("Checkpoint was taken on another instance or on a different version of instance " + instance.name() + ". Starting from scratch.");
+                resume = null;
+            }
+        } else if(startSol){
+            solver.setSolution(sol);
+            solver.setStartSol(true);
+        }
+        String storedModel = model.equals("CPOPipeline") ? "CPOOptInterModel" : model; //The pipeline ends with the full model.
+        IncumbentStore incumbents = store != null ? new IncumbentStore(store) : null;
+        boolean warmStart = resume != null || startSol;
+        if(incumbents != null && !warmStart){
+            Solution best = incumbents.best(instance, storedModel, IncumbentStore.objective(search));
+            if(best != null){
+                System.out.println("Starting from the best known solution: makespan " + best.makespan() + ", cost " + best.cost());
+                solver.setSolution(best);
+                solver.setStartSol(true);
+                warmStart = true;
+            }
+        }
+        if(model.equals("CPOPipeline") && !warmStart){
+            startFromRelaxed(solver, instance, search, relaxedTimeLimit, nWorkers, out + search + "/relaxed/");
+        }
+        if(timeLimit < Integer.MAX_VALUE) solver.setTimeLimit(timeLimit);
+        if(timeLimit2 < Integer.MAX_VALUE) solver.setSecondTimeLimit(timeLimit2);
+        if(failLimit < Integer.MAX_VALUE) solver.setFailLimit(failLimit);
+        if(nWorkers != 4) solver.setWorkers(nWorkers);
+        if(checkpointInterval > 0) solver.setCheckpointInterval(checkpointInterval);
+        if(solutionInterval != 0) solver.setSolutionInterval(solutionInterval);
+        if(solutionsByReference) solver.setSolutionsByReference(true);
+        solver.setOutputPath(out + search + "/");
+        runSearch(solver, search);
+        if(incumbents != null) incumbents.update(storedModel, solver.getSolution());
+        solver.close();
+    }
+
+    /**
+     * First stages of the pipeline: solves the relaxed model for a short time, repairs its best solution and uses the
+     * repaired schedule as starting point of the full model. The repaired schedule is the starting solution of the
+     * full model if it satisfies all the constraints, and a simple starting point otherwise. The log of the full model
+     * continues the timeline of these stages.
+     */
+    private static void startFromRelaxed(AbstractOptionalIntervalModel solver, Instance instance, String search, double timeLimit, int nWorkers, String out){
+        long start = System.nanoTime();
+        AbstractOptionalIntervalModel relaxed = createSolver("CPOOptInterModelRelax", instance);
+        relaxed.setTimeLimit(timeLimit);
+        relaxed.setSecondTimeLimit(0);
+        relaxed.setWorkers(nWorkers);
+        relaxed.setWriteIncumbents(false);
+        relaxed.setOutputPath(out);
+        runSearch(relaxed, search);
+        Solution relaxedSol = relaxed.getSolution();
+        relaxed.close();
+        if(relaxedSol == null){
+            System.out.println("No solution found with the relaxed model, starting the full model from scratch.");
+            solver.continueLog((double) (System.nanoTime() - start) / 1000000000);
+            return;
+        }
+
+        ScheduleRepair repair = new ScheduleRepair(instance);
+        Solution repaired = repair.repair(relaxedSol);
+        double timeUsed = (double) (System.nanoTime() - start) / 1000000000;
+        System.out.println("Relaxed solution (makespan " + relaxedSol.makespan() + ", cost " + relaxedSol.cost() + ") repaired at " + timeUsed
+                + ": makespan " + repaired.makespan() + ", cost " + repaired.cost() + ", " + repair.violations() + " operations violating constraints");
+        if(repair.violations() == 0){
+            solver.continueLog(timeUsed, new LogEntry(timeUsed, repaired.makespan(), repaired.cost(), false));
+            solver.setSolution(repaired);
+            solver.setStartSol(true);
+        } else {
+            System.out.println("Warning: the repaired schedule violates constraints for " + repair.violations() + " operations, it is only used as starting point of the search.");
+            solver.continueLog(timeUsed);
+            solver.setStartingPoint(repaired);
+        }
+    }
+
+    //Writes an instance to a json file or to a folder.
+    private static void writeInstance(Instance instance, String out){
+        if(!out.endsWith(".json")) new File(out).mkdirs();
+        System.out.println("Writing instance " + instance.name() + " (" + instance.nOps() + " operations) to " + out);
+        JsonWriter.writeInstanceToFile(instance, out);
+    }
+
+    /**
+     * @return a new model of the given kind for an instance, null if the model is not recognized
+     */
+    public static AbstractOptionalIntervalModel createSolver(String model, Instance instance){
+        switch(model){
+            case "CPOOptInterModel":
+                return new OptionalIntervalModel(instance);
+            case "CPOOptInterModelRelax":
+                return new OptionalIntervalModelRelaxed(instance);
+            default:
+                return null;
+        }
+    }
+
+    public static void runSearch(AbstractOptionalIntervalModel solver, String search){
+        switch(search){
+            case "LEX-DF":
+                solver.setSearchType(IloCP.ParameterValues.DepthFirst);
+                solver.lexSearch();
+                break;
+            case "LEX-FD":
+                solver.setFailureDirected(true);
+                solver.lexSearch();
+                break;
+            case "ILEX-AUTO":
+                solver.invertedLexSearch();
+                break;
+            case "ILEX-DF":
+                solver.setSearchType(IloCP.ParameterValues.DepthFirst);
+                solver.invertedLexSearch();
+                break;
+            case "ILEX-FD":
+                solver.setFailureDirected(true);
+                solver.invertedLexSearch();
+                break;
+            case "MK-AUTO":
+                solver.makespanSearch();
+                break;
+            case "MK-DF":
+                solver.setSearchType(IloCP.ParameterValues.DepthFirst);
+                solver.makespanSearch();
+                break;
+            case "MK-FD":
+                solver.setFailureDirected(true);
+                solver.makespanSearch();
+                break;
+            case "CST-AUTO":
+                solver.costSearch();
+                break;
+            case "CST-DF":
+                solver.setSearchType(IloCP.ParameterValues.DepthFirst);
+                solver.costSearch();
+                break;
+            case "CST-FD":
+                solver.setFailureDirected(true);
+                solver.costSearch();
                 break;
+            default:
+                solver.lexSearch();
         }
     }
 }
@@ -0,0 +1,990 @@
+package org.adsp.cpoptimizer;
+
+import ilog.cp.*;
+import ilog.concert.*;
+import org.adsp.datamodel.*;
+import org.adsp.tools.CriticalPath;
+import org.adsp.tools.TimeWindow;
+import org.adsp.tools.jfr.ModelBuildEvent;
+import org.adsp.tools.jfr.SearchPhaseEvent;
+import org.adsp.tools.jfr.SolutionEvent;
+import org.adsp.tools.json.JsonWriter;
+import org.adsp.tools.json.SnapshotWriter;
+
+import jdk.jfr.EventType;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Solution management and search procedures shared by the CP Optimizer models of the Aircraft Disassembly
+ * Scheduling Problem. Subclasses are responsible for building the model itself.
+ */
+public abstract class AbstractOptionalIntervalModel {
+    private static final long BYTES_PER_INTERVAL = 2048; //Rough memory footprint of an interval variable with its constraints.
+    private static final EventType SOLUTION_EVENT = EventType.getEventType(SolutionEvent.class);
+
+    //Parameters:
+    private boolean silent = false;
+    private String outputPath =  "output/default/";
+    private boolean startSol;
+    private boolean writeIncumbents = true;
+    private boolean solutionsByReference = false; //Whether solution files refer to the instance instead of embedding it.
+    private Consumer<Solution> onSolution = (Solution) -> {};
+    private Consumer<LogEntry> onProgress; //Notified of the objective values and bound of each incumbent, null if none.
+    private double solutionInterval = 0; //Minimum time between two solution records (in seconds), built at the end only if negative.
+    private long searchStart = System.nanoTime();
+    private double timeLimit = 60;
+    private double secondTimeLimit = 60; //Only used in lexicographical search
+    private int failLimit = Integer.MAX_VALUE;
+    private int workers = 4;
+    private IloCP.ParameterValues searchType = IloCP.ParameterValues.Auto;
+    private boolean FailureDirected = false;
+
+    //Data:
+    protected final Instance instance;
+    protected final CompiledInstance compiled; //Flat view of the instance used to build the model.
+    protected final CriticalPath criticalPath; //Time windows of operations derived from the precedences.
+    protected final int nResources;
+    protected final int nLocations;
+    protected final int nOperations;
+
+    //Model:
+    protected IloCP cp; //Cp solver
+
+    protected IloIntervalVar[] operations; //Main Activities.
+    protected IntervalVarList[] resourceActivities; //Optional activities.
+
+    protected final IntExprList ends = new IntExprList(); //End time of activities. Used for makespan objective.
+    protected final IntExprList costs = new IntExprList(); //Costs of optional activities. Used for cost objective.
+
+    //Objectives:
+    protected IloIntExpr makespan; //Main objective: minimize makespan.
+    protected IloIntExpr cost; //Secondary objective: minimize costs.
+
+    //Solution management:
+    private IloSolution currentSol; //Starting point given by the user or a checkpoint.
+    private Solution hint; //Schedule used as starting point without bound constraints.
+    private double logOffset = 0; //Time spent in previous stages, added to the times of the log.
+    private Solution lastSol;
+    private SolutionBuffer buffer; //Raw values of the last incumbent.
+    private boolean bufferHasSol = false; //Whether an incumbent has been extracted in the buffer.
+    private boolean pendingSol = false; //Whether the solution record of the last incumbent still has to be built.
+    private boolean skippedSol = false; //Whether the last incumbent has not been extracted in the buffer.
+    private boolean unpublished = false; //Whether the last solution record has not been handed to the listeners yet.
+    private double lastPublication = Double.NEGATIVE_INFINITY;
+    private final SearchLog log = new SearchLog();
+    private SnapshotWriter<StoredSolution> incumbentWriter; //Writes incumbents in the background during search.
+    private InstanceRef instanceRef; //Reference to the instance written in solution files, null to embed it.
+
+    //Search state:
+    private String search; //Kind of search in progress: LEX, ILEX, MK or CST.
+    private volatile boolean cancelled = false; //Whether the search has been cancelled.
+    private boolean ended = false; //Whether the solver has been released.
+    private volatile int phase; //Phase of the search in progress.
+    private volatile int makespanLimit = Integer.MAX_VALUE; //Upper bound constraint posted on the makespan.
+    private volatile int costLimit = Integer.MAX_VALUE; //Upper bound constraint posted on the cost.
+    private volatile int makespanBound; //Best known lower bound for the makespan.
+    private volatile int costBound; //Best known lower bound for the cost.
+    private final List<IloAddable> searchAddables = new ArrayList<>(); //Objectives and bound constraints posted by the searches.
+
+    //Checkpoints:
+    private double checkpointInterval = 0; //Time between checkpoints (in seconds), disabled if 0.
+    private Checkpoint resumeFrom;
+    private SnapshotWriter<Checkpoint> checkpointWriter;
+    private String instanceHash; //Content hash of the instance written in the checkpoints.
+    private ScheduledExecutorService checkpointTimer;
+
+    private final ModelBuildEvent buildEvent; //Recorded from the creation of the solver to the end of the model build.
+
+    protected AbstractOptionalIntervalModel(Instance instance){
+        //Preparing data:
+        this.instance = instance;
+        compiled = instance.compiled();
+        criticalPath = new CriticalPath(compiled, instance.maxTime());
+        nResources = instance.resources().length;
+        nLocations = instance.locations().length;
+        nOperations = instance.operations().length;
+        buildEvent = new ModelBuildEvent(getClass().getSimpleName(), instance.name());
+        buildEvent.begin();
+
+        //Initializing solver:
+        try {
+            cp = new IloCP();
+        } catch (IloException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Must be called by subclasses once the model is built.
+     */
+    protected void modelBuilt(){
+        if(!buildEvent.shouldCommit()) return;
+        buildEvent.operations = nOperations;
+        int intervals = nOperations;
+        for(IntervalVarList acts : resourceActivities) intervals += acts.size();
+        buildEvent.intervals = intervals;
+        int constraints = 0;
+        for(Iterator<?> it = cp.iterator(); it.hasNext(); it.next()) constraints++;
+        buildEvent.constraints = constraints;
+        buildEvent.commit();
+    }
+
+    /**
+     * Restricts the main activities to the time windows given by the critical path analysis: an operation cannot start
+     * before the end of its predecessors and must leave time for its successors before the maximum time.
+     */
+    protected void setTimeWindows() throws IloException {
+        if(criticalPath.length() > instance.maxTime()) return; //Infeasible instance, left to the solver.
+        for (int i = 0; i < nOperations; i++) {
+            operations[i].setStartMin(criticalPath.earliestStart(i));
+            operations[i].setEndMax(criticalPath.latestEnd(i));
+        }
+    }
+
+    /**
+     * Adds the unavailability periods of each resource to its activities and posts the no overlap constraint of
+     * each resource. Must be called by subclasses once all the optional activities are created. The periods are
+     * added as given in the instance, without merging, so that the exported model is unchanged.
+     */
+    protected void addUnavailabilities() throws IloException {
+        for (int r = 0; r < nResources; r++) {
+            TimeWindow[] unavailable = instance.resources()[r].unavailable();
+            for(int u = 0; u < unavailable.length; u++){
+                IloIntervalVar unav = cp.intervalVar("U[" + r + ":" + unavailable[u].start() + ";" + unavailable[u].start() + "]");
+                unav.setStartMin(unavailable[u].start());
+                unav.setStartMax(unavailable[u].start());
+                unav.setEndMin(unavailable[u].end());
+                unav.setEndMax(unavailable[u].end());
+                resourceActivities[r].add(unav);
+            }
+            //Creating seqVar and adding noOverlap constraint
+            IloIntervalSequenceVar seq = cp.intervalSequenceVar(resourceActivities[r].toArray(), "S[" + r + "]");
+            cp.add(cp.noOverlap(seq));
+        }
+    }
+
+    public void close(){
+        stopCheckpoints();
+        if(incumbentWriter != null) incumbentWriter.close();
+        synchronized (this) {
+            if (cp != null && !ended) cp.end();
+            ended = true;
+        }
+    }
+
+    public boolean isClosed(){
+        return ended;
+    }
+
+    /**
+     * Resets the model so that it can be used for a new search, as if it had just been built: the objectives and
+     * bound constraints posted by the previous searches are removed, the solutions, log and starting point are
+     * forgotten and the parameters and listeners are restored to their default values. The base model is kept.
+     * Must not be called during a search. The failure directed search parameters cannot be restored, models on which
+     * it was enabled cannot be reset.
+     */
+    public void reset(){
+        if(ended) throw new IllegalStateException("Model of instance " + instance.name() + " has been closed");
+        if(FailureDirected) throw new IllegalStateException("Failure directed search cannot be disabled on the model of instance " + instance.name());
+        stopCheckpoints();
+        if(incumbentWriter != null){
+            incumbentWriter.close();
+            incumbentWriter = null;
+        }
+        try {
+            for(IloAddable addable : searchAddables) cp.remove(addable);
+            searchAddables.clear();
+            cp.setStartingPoint(cp.solution()); //Empty starting point.
+            cp.clearAbort();
+            cp.setParameter(IloCP.DoubleParam.TimeLimit, IloCP.Infinity);
+            cp.setParameter(IloCP.IntParam.FailLimit, Integer.MAX_VALUE);
+            cp.setParameter(IloCP.IntParam.Workers, IloCP.ParameterValues.Auto);
+            cp.setParameter(IloCP.IntParam.SearchType, IloCP.ParameterValues.Auto);
+        } catch (IloException e) {
+            close();
+            throw new RuntimeException(e);
+        }
+
+        //Parameters:
+        setSilent(false);
+        outputPath = "output/default/";
+        startSol = false;
+        writeIncumbents = true;
+        solutionsByReference = false;
+        onSolution = (Solution) -> {};
+        onProgress = null;
+        solutionInterval = 0;
+        timeLimit = 60;
+        secondTimeLimit = 60;
+        failLimit = Integer.MAX_VALUE;
+        workers = 4;
+        searchType = IloCP.ParameterValues.Auto;
+        checkpointInterval = 0;
+        resumeFrom = null;
+        hint = null;
+        logOffset = 0;
+
+        //Search state:
+        synchronized (this) {
+            currentSol = null;
+            lastSol = null;
+            bufferHasSol = false;
+            pendingSol = false;
+            skippedSol = false;
+            unpublished = false;
+            log.clear();
+        }
+        lastPublication = Double.NEGATIVE_INFINITY;
+        instanceRef = null;
+        search = null;
+        cancelled = false;
+        phase = 0;
+        makespanLimit = Integer.MAX_VALUE;
+        costLimit = Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return an estimate of the memory used by the model (in bytes): the memory reported by the solver once a search
+     * has been performed, and an estimate from the number of interval variables before
+     */
+    public long memoryUsage(){
+        int intervals = nOperations;
+        for(IntervalVarList acts : resourceActivities) intervals += acts.size();
+        long estimate = (long) intervals * BYTES_PER_INTERVAL;
+        try {
+            return Math.max(estimate, cp.getInfo(IloCP.IntInfo.MemoryUsage));
+        } catch (IloException e) {
+            return estimate;
+        }
+    }
+
+    /**
+     * Stops the search in progress and skips the search phases not started yet. The search then ends as if its limits
+     * were reached: the best solution found is kept and the results are written. Can be called from any thread.
+     */
+    public void cancel(){
+        cancelled = true;
+        synchronized (this) {
+            if (cp != null && !ended) cp.abortSearch();
+        }
+    }
+
+    public boolean isCancelled(){
+        return cancelled;
+    }
+
+    private void processSol() throws IloException {
+        SolutionEvent event = SOLUTION_EVENT.isEnabled() ? new SolutionEvent() : null;
+        if(event != null) event.begin();
+        double currentSearchTime = (double) timeElapsed() / 1000000000;
+        int solMakespan = (int) cp.getValue(makespan);
+        int solCost = (int) cp.getValue(cost);
+        boolean optimal = cp.getObjGap() == 0;
+
+        //The solution is only extracted if its record is built now or may be taken by a checkpoint:
+        boolean publish = solutionInterval >= 0 && currentSearchTime - lastPublication >= solutionInterval;
+        boolean extract = publish || checkpointWriter != null;
+        SolverStats stats = solverStats();
+
+        //Extracting and logging sol:
+        long extractionTime = 0;
+        synchronized (this) {
+            if(extract) extractionTime = extractSol(solMakespan, solCost);
+            else skippedSol = true;
+            log.add(logOffset + currentSearchTime, solMakespan, solCost, optimal, stats);
+        }
+        if(onProgress != null) onProgress.accept(new LogEntry(logOffset + currentSearchTime, solMakespan, solCost, optimal, stats));
+
+        //Printing sol:
+        if(!silent) {
+            System.out.println("new solution found at " + currentSearchTime);
+            System.out.println("Makespan \t: " + solMakespan);
+            System.out.println("Cost \t: " + solCost);
+        }
+
+        //Building the solution record if needed:
+        if(publish) publishSol();
+
+        if(event != null){
+            event.extractionTime = extractionTime;
+            event.materialised = publish;
+            event.makespan = solMakespan;
+            event.cost = solCost;
+            event.commit();
+        }
+    }
+
+    //Extracts the current solution of the solver in the buffer. Returns the time spent (in nanoseconds).
+    private synchronized long extractSol(int solMakespan, int solCost) throws IloException {
+        long extractionStart = System.nanoTime();
+        buffer.extract(cpReader, solMakespan, solCost);
+        bufferHasSol = true;
+        pendingSol = true;
+        skippedSol = false;
+        return System.nanoTime() - extractionStart;
+    }
+
+    //Statistics of the solver for the current search phase.
+    private SolverStats solverStats() throws IloException {
+        return new SolverStats(
+                cp.getObjBound(),
+                cp.getObjGap(),
+                cp.getInfo(IloCP.IntInfo.NumberOfBranches),
+                cp.getInfo(IloCP.IntInfo.NumberOfFails),
+                cp.getInfo(IloCP.IntInfo.MemoryUsage),
+                cp.getInfo(IloCP.IntInfo.EffectiveWorkers),
+                cp.getInfo(IloCP.DoubleInfo.SolveTime)
+        );
+    }
+
+    //Builds the solution record of the last incumbent if it has not been built yet.
+    private synchronized Solution snapshotSol(){
+        if(pendingSol){
+            lastSol = buffer.toSolution(instance);
+            pendingSol = false;
+            unpublished = true;
+        }
+        return lastSol;
+    }
+
+    //Builds the solution record of the last incumbent and hands it to the incumbent writer and solution listener.
+    private void publishSol(){
+        Solution sol;
+        synchronized (this) {
+            snapshotSol();
+            if(!unpublished) return;
+            unpublished = false;
+            sol = lastSol;
+        }
+        lastPublication = (double) timeElapsed() / 1000000000;
+        if(incumbentWriter != null) incumbentWriter.submit(new StoredSolution(sol, instanceRef));
+        onSolution.accept(sol);
+    }
+
+    //Builds a starting point from the last incumbent extracted in the buffer.
+    private IloSolution bufferToIloSolution() throws IloException {
+        IloSolution iloSol = cp.solution();
+        for (int i = 0; i < nOperations; i++) {
+            iloSol.setPresent(operations[i]);
+            iloSol.setStart(operations[i], buffer.opStart(i));
+        }
+        for (int r = 0; r < nResources; r++) {
+            for (int k = 0; k < resourceActivities[r].size(); k++) if(buffer.operation(r, k) >= 0) {
+                IloIntervalVar act = resourceActivities[r].get(k);
+                if (buffer.isPresent(r, k)) {
+                    iloSol.setPresent(act);
+                    iloSol.setStart(act, buffer.start(r, k));
+                    iloSol.setEnd(act, buffer.end(r, k));
+                } else {
+                    iloSol.setAbsent(act);
+                }
+            }
+        }
+        return iloSol;
+    }
+
+    //Maps the optional activities of each resource to the operation and requirement they fulfill.
+    private SolutionBuffer createBuffer(){
+        int[][] resOps = new int[nResources][];
+        int[][] resReqs = new int[nResources][];
+        for (int r = 0; r < nResources; r++) {
+            resOps[r] = new int[resourceActivities[r].size()];
+            resReqs[r] = new int[resourceActivities[r].size()];
+            for (int k = 0; k < resourceActivities[r].size(); k++) {
+                String actName = resourceActivities[r].get(k).getName();
+                if (actName.startsWith("R")) {
+                    String[] indices = actName.substring(2, actName.length() - 1).split(",");
+                    resOps[r][k] = Integer.parseInt(indices[0]);
+                    resReqs[r][k] = Integer.parseInt(indices[1]);
+                } else resOps[r][k] = -1;
+            }
+        }
+        return new SolutionBuffer(nOperations, resOps, resReqs);
+    }
+
+    private final SolutionBuffer.Reader cpReader = new SolutionBuffer.Reader() {
+        @Override
+        public int start(int op) throws IloException {
+            return cp.getStart(operations[op]);
+        }
+
+        @Override
+        public int end(int op) throws IloException {
+            return cp.getEnd(operations[op]);
+        }
+
+        @Override
+        public boolean isPresent(int res, int act) throws IloException {
+            return cp.isPresent(resourceActivities[res].get(act));
+        }
+
+        @Override
+        public int start(int res, int act) throws IloException {
+            return cp.getStart(resourceActivities[res].get(act));
+        }
+
+        @Override
+        public int end(int res, int act) throws IloException {
+            return cp.getEnd(resourceActivities[res].get(act));
+        }
+    };
+
+    private void assignStartSol(Solution sol){
+        try {
+            currentSol = toIloSolution(sol);
+            addLimit(true, sol.makespan());
+            addLimit(false, sol.cost());
+            cp.setStartingPoint(currentSol);
+        } catch (IloException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void assignHint() throws IloException {
+        currentSol = toIloSolution(hint);
+        cp.setStartingPoint(currentSol);
+    }
+
+    private IloSolution toIloSolution(Solution sol) throws IloException {
+        IloSolution iloSol = cp.solution();
+        for (Activity act : sol.activities()) {
+            iloSol.setPresent(operations[act.operation()]);
+            iloSol.setStart(operations[act.operation()], act.start());
+        }
+        for(Assignment ass : sol.assignments()) {
+            IloIntervalVar var = getResourceAct(ass.operation(), ass.requirement(), ass.resource());
+            if(var != null){
+                iloSol.setPresent(var);
+                iloSol.setStart(var, ass.start());
+                iloSol.setEnd(var, ass.end());
+            }
+        }
+        return iloSol;
+    }
+
+    //Not optimal. If performances are needed, consider maintaining a map of activities by name.
+    private IloIntervalVar getResourceAct(int op, int req, int res){
+        if(res < 0 || res >= resourceActivities.length) return null;
+        String name = "R[" + op + "," + req + "," + res + "]";
+        for(IloIntervalVar act : resourceActivities[res]){
+            if(act.getName().equals(name)) return act;
+        }
+        return null;
+    }
+
+    //Posts an upper bound constraint on one of the objectives and records it for checkpoints.
+    private void addLimit(boolean onMakespan, int limit) throws IloException {
+        if(onMakespan){
+            post(cp.le(makespan, limit));
+            makespanLimit = Math.min(makespanLimit, limit);
+        } else {
+            post(cp.le(cost, limit));
+            costLimit = Math.min(costLimit, limit);
+        }
+    }
+
+    //Adds an objective or a constraint specific to the current search, removed when the model is reset.
+    private void post(IloAddable addable) throws IloException {
+        cp.add(addable);
+        searchAddables.add(addable);
+    }
+
+    private void updateBound(boolean onMakespan, int bound){
+        if(onMakespan && bound > makespanBound) makespanBound = bound;
+        if(!onMakespan && bound > costBound) costBound = bound;
+    }
+
+    private void performSearch(boolean onMakespan){
+        SearchPhaseEvent event = new SearchPhaseEvent(search, phase, objectiveName(onMakespan));
+        event.begin();
+        int solutions = 0;
+        if(cancelled) return;
+        try {
+            cp.startNewSearch();
+            while(!cancelled && cp.next()){
+                processSol();
+                solutions++;
+            }
+            //The solver keeps the last solution found once the search has stopped:
+            if(skippedSol) extractSol((int) cp.getValue(makespan), (int) cp.getValue(cost));
+            if(event.shouldCommit()){
+                event.solutions = solutions;
+                if(bufferHasSol) event.bestValue = onMakespan ? buffer.getMakespan() : buffer.getCost();
+                event.bound = cp.getObjBound();
+                event.commit();
+            }
+            cp.endSearch();
+        } catch (IloException e) {
+            close();
+            throw new RuntimeException(e);
+        }
+    }
+
+    //Search on makespan objective
+    public void makespanSearch(){
+        singleObjectiveSearch("MK", true);
+    }
+
+    //Search on cost objective
+    public void costSearch(){
+        singleObjectiveSearch("CST", false);
+    }
+
+    //Lexicographical search on makespan first:
+    public void lexSearch(){
+        lexicographicalSearch("LEX", true);
+    }
+
+    //Lexicographical search on cost first:
+    public void invertedLexSearch() {
+        lexicographicalSearch("ILEX", false);
+    }
+
+    private void singleObjectiveSearch(String search, boolean onMakespan){
+        startSearch(search);
+        try {
+            post(cp.minimize(onMakespan ? makespan : cost));
+            if(resumeFrom != null) restoreCheckpoint();
+            else if(startSol) assignStartSol(lastSol);
+            else if(hint != null) assignHint();
+            if(remainingFirstPhaseTime() > 0 && !cancelled) {
+                if(!silent) System.out.println("starting search on " + objectiveName(onMakespan) + " objective");
+                performSearch(onMakespan);
+                updateBound(onMakespan, (int) cp.getObjBound());
+            }
+        } catch (IloException e) {
+            close();
+            throw new RuntimeException(e);
+        }
+        writeResults();
+    }
+
+    private void lexicographicalSearch(String search, boolean makespanFirst){
+        startSearch(search);
+        boolean resumeSecondPhase = resumeFrom != null && resumeFrom.phase() == 1;
+        try {
+            //First objective:
+            IloObjective objective = null;
+            if(resumeSecondPhase) restoreCheckpoint();
+            else {
+                objective = cp.minimize(makespanFirst ? makespan : cost);
+                post(objective);
+                if(resumeFrom != null) restoreCheckpoint();
+                else if(startSol) assignStartSol(lastSol);
+                else if(hint != null) assignHint();
+                if(remainingFirstPhaseTime() > 0 && !cancelled) {
+                    if(!silent) System.out.println("starting search on " + objectiveName(makespanFirst) + " objective");
+                    performSearch(makespanFirst);
+                    updateBound(makespanFirst, (int) cp.getObjBound());
+                }
+            }
+            double remainingTime = timeLimit - ((double) timeElapsed() / 1000000000) + secondTimeLimit;
+            publishSol();
+            IloSolution startingPoint = bufferHasSol ? bufferToIloSolution() : currentSol;
+
+            //Second objective:
+            if(remainingTime > 0 && startingPoint != null && lastSol != null && !cancelled) {
+                if(!resumeSecondPhase) {
+                    cp.remove(objective);
+                    searchAddables.remove(objective);
+                    addLimit(makespanFirst, makespanFirst ? lastSol.makespan() : lastSol.cost());
+                    if(!makespanFirst) System.out.println(" added cst: cost <= " + lastSol.cost());
+                }
+                post(cp.minimize(makespanFirst ? cost : makespan));
+                cp.setStartingPoint(startingPoint);
+                //Allocating remaining time to search:
+                setTimeLimit(remainingTime);
+                phase = 1;
+                checkpoint();
+                if(!silent) System.out.println("starting search on " + objectiveName(!makespanFirst) + " objective");
+                performSearch(!makespanFirst);
+                updateBound(!makespanFirst, (int) cp.getObjBound());
+            }
+        } catch (IloException e) {
+            close();
+            throw new RuntimeException(e);
+        }
+        writeResults();
+    }
+
+    private static String objectiveName(boolean onMakespan){
+        return onMakespan ? "makespan" : "cost";
+    }
+
+    private void startSearch(String search){
+        this.search = search;
+        phase = 0;
+        makespanBound = criticalPath.length();
+        costBound = instance.costLB();
+        searchStart = System.nanoTime();
+
+        if(resumeFrom != null) {
+            if(resumeFrom.search().equals(search)) {
+                //Shifting the search start to account for the time already used:
+                searchStart -= (long) (resumeFrom.timeUsed() * 1000000000);
+                phase = resumeFrom.phase();
+                updateBound(true, resumeFrom.makespanBound());
+                updateBound(false, resumeFrom.costBound());
+            } else {
+                System.out.println("Checkpoint was taken during a " + resumeFrom.search() + " search and cannot be used for a " + search + " search. Starting from scratch.");
+                resumeFrom = null;
+            }
+        }
+
+        if(buffer == null) buffer = createBuffer();
+        if(solutionsByReference && instanceRef == null){
+            //Writing the instance next to the solutions so that the results can be read on their own:
+            instanceRef = InstanceRef.of(instance);
+            JsonWriter.writeToFileAtomic(instance, new File(outputPath + "instances/" + instance.id() + ".json"), true);
+        }
+        if(writeIncumbents && incumbentWriter == null){
+            incumbentWriter = new SnapshotWriter<>(solutionFile());
+        }
+        if(checkpointInterval > 0 && checkpointTimer == null){
+            checkpointWriter = new SnapshotWriter<>(outputPath + "checkpoints/" + instance.name() + ".json");
+            if(instanceHash == null) instanceHash = instance.contentHash();
+            checkpointTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "checkpoint-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = (long) (checkpointInterval * 1000);
+            checkpointTimer.scheduleAtFixedRate(this::checkpoint, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    //Restores the starting point and bound constraints of the checkpoint the search is resumed from.
+    private void restoreCheckpoint() throws IloException {
+        if(resumeFrom.makespanLimit() < Integer.MAX_VALUE) addLimit(true, resumeFrom.makespanLimit());
+        if(resumeFrom.costLimit() < Integer.MAX_VALUE) addLimit(false, resumeFrom.costLimit());
+        if(lastSol != null) {
+            currentSol = toIloSolution(lastSol);
+            cp.setStartingPoint(currentSol);
+        }
+        if(resumeFrom.phase() == 0) {
+            //Allocating the remaining time of the first phase:
+            double remainingTime = remainingFirstPhaseTime();
+            if(remainingTime > 0) cp.setParameter(IloCP.DoubleParam.TimeLimit, remainingTime);
+        }
+        if(!silent) System.out.println("resuming " + search + " search in phase " + (resumeFrom.phase() + 1) + " after " + resumeFrom.timeUsed() + "s");
+    }
+
+    private double remainingFirstPhaseTime(){
+        return timeLimit - ((double) timeElapsed() / 1000000000);
+    }
+
+    /**
+     * Resumes the next search from a checkpoint. The search must be of the same kind as the one that was in progress
+     * when the checkpoint was taken. It continues with the remaining time and the bound constraints of the checkpoint.
+     * @param checkpoint checkpoint to resume from
+     */
+    public void resume(Checkpoint checkpoint) {
+        resumeFrom = checkpoint;
+        synchronized (this) {
+            lastSol = checkpoint.solution();
+            pendingSol = false;
+            log.clear();
+            log.addAll(checkpoint.log());
+        }
+    }
+
+    //Writes a checkpoint of the current search state. Called from the solver thread and from the checkpoint timer.
+    private synchronized void checkpoint(){
+        if(checkpointWriter == null) return;
+        checkpointWriter.submit(new Checkpoint(
+                instance.name(),
+                instanceHash,
+                search,
+                phase,
+                makespanLimit,
+                costLimit,
+                makespanBound,
+                costBound,
+                (double) timeElapsed() / 1000000000,
+                snapshotSol(),
+                log.toArray()
+        ));
+    }
+
+    private void stopCheckpoints(){
+        if(checkpointTimer != null){
+            checkpointTimer.shutdownNow();
+            checkpointTimer = null;
+        }
+        if(checkpointWriter != null){
+            checkpoint();
+            checkpointWriter.close();
+            checkpointWriter = null;
+        }
+    }
+
+    private void writeResults(){
+        publishSol();
+        stopCheckpoints();
+
+        //Waiting for the last incumbent snapshot before overwriting it with the final solution:
+        if(incumbentWriter != null){
+            incumbentWriter.close();
+            incumbentWriter = null;
+        }
+
+        String logFile = outputPath + "logs/" + instance.name() + ".json";
+        if(!silent) System.out.println("Writing search log to file: " + logFile);
+        SolverStats summary = null;
+        try {
+            summary = solverStats();
+        } catch (IloException e) {
+            System.out.println("Unable to retrieve solver statistics: " + e.getMessage());
+        }
+        JsonWriter.writeLogToFile(new Log(instance.name(), makespanBound, costBound, log.toArray(), summary), logFile);
+
+        if(lastSol != null){
+            String solFile = solutionFile();
+            System.out.println("Writing best solution to file: " + solFile);
+            JsonWriter.writeSolutionToFile(lastSol, solFile, instanceRef);
+        } else System.out.println("No solution found.");
+    }
+
+    private String solutionFile(){
+        return outputPath + "solutions/" + instance.name() + ".json";
+    }
+
+    private long timeElapsed(){
+        return System.nanoTime() - searchStart;
+    }
+
+    public double getTimeLimit() {
+        return timeLimit;
+    }
+
+    public void setTimeLimit(double timeLimit) {
+        this.timeLimit = timeLimit;
+        if(cp != null) {
+            try {
+                cp.setParameter(IloCP.DoubleParam.TimeLimit, timeLimit);
+            } catch (IloException e) {
+                close();
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    public double getSecondTimeLimit() {
+        return secondTimeLimit;
+    }
+
+    public void setSecondTimeLimit(double timeLimit) {
+        secondTimeLimit = timeLimit;
+    }
+
+    public int getFailLimit() {
+        return failLimit;
+    }
+
+    public void setFailLimit(int failLimit) {
+        this.failLimit = failLimit;
+        if(cp != null) {
+            try {
+                cp.setParameter(IloCP.IntParam.FailLimit, failLimit);
+            } catch (IloException e) {
+                close();
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+        if(cp != null) {
+            try {
+                cp.setParameter(IloCP.IntParam.Workers, workers);
+            } catch (IloException e) {
+                close();
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    public IloCP.ParameterValues getSearchType() {
+        return searchType;
+    }
+
+    public void setSearchType(IloCP.ParameterValues searchType) {
+        this.searchType = searchType;
+        if(cp != null) {
+            try {
+                cp.setParameter(IloCP.IntParam.SearchType, searchType);
+            } catch (IloException e) {
+                close();
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    public boolean isSilent() {
+        return silent;
+    }
+
+    public void setSilent(boolean silent) {
+        this.silent = silent;
+        if(cp != null) {
+            if(silent) cp.setOut(null);
+            else cp.setOut(System.out);
+        }
+    }
+
+    public void setOnSolution(Consumer<Solution> onSolution) {
+        this.onSolution = onSolution;
+    }
+
+    /**
+     * Sets a listener notified of each new incumbent with its objective values, the bound of the current phase and the
+     * statistics of the solver. Unlike the solution listener, it is called for every incumbent without building the
+     * solution record.
+     */
+    public void setOnProgress(Consumer<LogEntry> onProgress) {
+        this.onProgress = onProgress;
+    }
+
+    /**
+     * @return the best known lower bound for the makespan, updated at the end of each search phase
+     */
+    public int getMakespanBound() {
+        return makespanBound;
+    }
+
+    /**
+     * @return the best known lower bound for the cost, updated at the end of each search phase
+     */
+    public int getCostBound() {
+        return costBound;
+    }
+
+    public double getSolutionInterval() {
+        return solutionInterval;
+    }
+
+    /**
+     * Sets how often the solution records of the incumbents are built during the search. Objective values are logged
+     * for each incumbent but the full solution handed to the solution listener and the incumbent writer is only built
+     * if the given time has elapsed since the last one. The best solution is always built at the end of each phase.
+     * @param solutionInterval minimum time between two solution records (in seconds), 0 to build a record for every
+     *                         incumbent, negative to only build it at the end of the search
+     */
+    public void setSolutionInterval(double solutionInterval) {
+        this.solutionInterval = solutionInterval;
+    }
+
+    public boolean isStartSol() {
+        return startSol;
+    }
+
+    public void setStartSol(boolean startSol) {
+        this.startSol = startSol;
+    }
+
+    public double getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * Sets the time between two checkpoints of the search state. Checkpoints are written in the checkpoints folder
+     * of the output path and can be used to resume the search with {@link #resume(Checkpoint)}.
+     * @param checkpointInterval time between checkpoints (in seconds), 0 to disable checkpoints
+     */
+    public void setCheckpointInterval(double checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public boolean isWriteIncumbents() {
+        return writeIncumbents;
+    }
+
+    /**
+     * Enables or disables the background writing of each new incumbent to the solution file during the search.
+     */
+    public void setWriteIncumbents(boolean writeIncumbents) {
+        this.writeIncumbents = writeIncumbents;
+    }
+
+    public boolean isSolutionsByReference() {
+        return solutionsByReference;
+    }
+
+    /**
+     * Sets whether the solution files refer to the instance by its id and content hash instead of embedding it.
+     * In this case, the instance is written once in the instances folder of the output path.
+     */
+    public void setSolutionsByReference(boolean solutionsByReference) {
+        this.solutionsByReference = solutionsByReference;
+    }
+
+    /**
+     * Uses a schedule as starting point of the next search. Unlike {@link #setSolution(Solution)} with a starting
+     * solution, no bound constraint is posted on the objectives and the schedule is not kept as a solution, so that it
+     * may violate some constraints.
+     * @param hint schedule to start from
+     */
+    public void setStartingPoint(Solution hint) {
+        this.hint = hint;
+    }
+
+    /**
+     * Continues the timeline of previous stages of the resolution in the log of the next search: the given entries are
+     * kept at the beginning of the log and the times of the next entries are shifted by the time already spent. The
+     * time limits are not affected.
+     * @param timeUsed time spent in the previous stages (in seconds)
+     * @param entries entries of the previous stages
+     */
+    public synchronized void continueLog(double timeUsed, LogEntry... entries) {
+        logOffset = timeUsed;
+        log.clear();
+        log.addAll(entries);
+    }
+
+    public synchronized void setSolution(Solution solution) {
+        this.lastSol = solution;
+        pendingSol = false;
+    }
+
+    /**
+     * @return the best solution found so far, built from the last incumbent if needed
+     */
+    public Solution getSolution() {
+        return snapshotSol();
+    }
+
+    public String getOutputPath() {
+        return outputPath;
+    }
+
+    public void setOutputPath(String path) {
+        this.outputPath = path;
+    }
+
+    public boolean isFailureDirected() {
+        return FailureDirected;
+    }
+
+    public void setFailureDirected(boolean failureDirected) {
+        FailureDirected = failureDirected;
+        if(failureDirected && cp != null){
+            try {
+                cp.setParameter(IloCP.DoubleParam.FailureDirectedSearchEmphasis, workers); //Setting all workers to FD search
+                cp.setParameter(IloCP.IntParam.FailureDirectedSearchMaxMemory, 314572800); //Augmenting FD search memory
+            } catch (IloException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
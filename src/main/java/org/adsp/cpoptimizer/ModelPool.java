@@ -0,0 +1,117 @@
+package org.adsp.cpoptimizer;
+
+import org.adsp.datamodel.Instance;
+
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * Pool of built models kept between searches in a long-running process, keyed by the kind of model and the content
+ * hash of the instance. A model checked out for an instance already solved is taken from the pool instead of being
+ * built again, and is reset when it is returned: the objectives and bound constraints of its searches are removed and
+ * only the base model is kept.
+ * <p>
+ * Idle models are evicted, least recently returned first, when their estimated memory exceeds the budget of the pool.
+ * The models live mostly in the native memory of the solver, the budget is compared with the memory reported by the
+ * solver, or estimated from the size of the model before its first search (see
+ * {@link AbstractOptionalIntervalModel#memoryUsage()}).
+ */
+public class ModelPool {
+    private record Idle(String key, long memory) {}
+
+    private final BiFunction<String, Instance, AbstractOptionalIntervalModel> factory;
+    private final long memoryBudget;
+    private final LinkedHashMap<AbstractOptionalIntervalModel, Idle> idle = new LinkedHashMap<>(); //Least recently returned first.
+    private final Map<AbstractOptionalIntervalModel, String> checkedOut = new IdentityHashMap<>();
+    private long idleMemory = 0;
+
+    /**
+     * @param factory builds a model of the given kind for an instance, returns null if the kind is not recognized
+     * @param memoryBudget maximum estimated memory of the idle models (in bytes)
+     */
+    public ModelPool(BiFunction<String, Instance, AbstractOptionalIntervalModel> factory, long memoryBudget) {
+        this.factory = factory;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * @return a model of the given kind for an instance, taken from the pool if one is idle and built otherwise, null
+     * if the kind of model is not recognized
+     */
+    public AbstractOptionalIntervalModel checkout(String model, Instance instance){
+        String key = model + ":" + instance.contentHash();
+        synchronized (this) {
+            AbstractOptionalIntervalModel reused = null;
+            for(Map.Entry<AbstractOptionalIntervalModel, Idle> entry : idle.entrySet()){
+                if(entry.getValue().key().equals(key)) reused = entry.getKey(); //The most recently returned one.
+            }
+            if(reused != null){
+                idleMemory -= idle.remove(reused).memory();
+                checkedOut.put(reused, key);
+                return reused;
+            }
+        }
+
+        AbstractOptionalIntervalModel solver = factory.apply(model, instance);
+        if(solver == null) return null;
+        synchronized (this) {
+            checkedOut.put(solver, key);
+        }
+        return solver;
+    }
+
+    /**
+     * Returns a model to the pool once its search has ended. The model is reset, or closed if it cannot be reused.
+     */
+    public void checkin(AbstractOptionalIntervalModel solver){
+        String key;
+        synchronized (this) {
+            key = checkedOut.remove(solver);
+        }
+        if(key == null || solver.isClosed()){
+            solver.close();
+            return;
+        }
+        try {
+            solver.reset();
+        } catch (RuntimeException e) {
+            solver.close();
+            return;
+        }
+
+        long memory = solver.memoryUsage();
+        List<AbstractOptionalIntervalModel> evicted = new ArrayList<>();
+        synchronized (this) {
+            idle.put(solver, new Idle(key, memory));
+            idleMemory += memory;
+            Iterator<Map.Entry<AbstractOptionalIntervalModel, Idle>> it = idle.entrySet().iterator();
+            while(it.hasNext() && idleMemory > memoryBudget){
+                Map.Entry<AbstractOptionalIntervalModel, Idle> eldest = it.next();
+                idleMemory -= eldest.getValue().memory();
+                evicted.add(eldest.getKey());
+                it.remove();
+            }
+        }
+        for(AbstractOptionalIntervalModel model : evicted) model.close();
+    }
+
+    /**
+     * Closes all the idle models.
+     */
+    public void clear(){
+        List<AbstractOptionalIntervalModel> evicted;
+        synchronized (this) {
+            evicted = new ArrayList<>(idle.keySet());
+            idle.clear();
+            idleMemory = 0;
+        }
+        for(AbstractOptionalIntervalModel model : evicted) model.close();
+    }
+
+    /**
+     * @return the number of idle models in the pool
+     */
+    public synchronized int size(){
+        return idle.size();
+    }
+}
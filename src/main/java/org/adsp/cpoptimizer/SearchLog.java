@@ -0,0 +1,59 @@
+package org.adsp.cpoptimizer;
+
+import org.adsp.datamodel.LogEntry;
+import org.adsp.datamodel.SolverStats;
+
+import java.util.Arrays;
+
+/**
+ * Log of the solutions found during a search, kept in growable primitive arrays so that logging a solution only
+ * allocates its solver statistics. The {@link LogEntry} records are only built when the log is read.
+ */
+public class SearchLog {
+    private double[] times = new double[64];
+    private int[] makespans = new int[64];
+    private int[] costs = new int[64];
+    private boolean[] optimal = new boolean[64];
+    private SolverStats[] stats = new SolverStats[64];
+    private int size = 0;
+
+    public void add(double time, int makespan, int cost, boolean optimal, SolverStats stats){
+        if(size == times.length){
+            int capacity = size * 2;
+            times = Arrays.copyOf(times, capacity);
+            makespans = Arrays.copyOf(makespans, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+            this.optimal = Arrays.copyOf(this.optimal, capacity);
+            this.stats = Arrays.copyOf(this.stats, capacity);
+        }
+        times[size] = time;
+        makespans[size] = makespan;
+        costs[size] = cost;
+        this.optimal[size] = optimal;
+        this.stats[size] = stats;
+        size++;
+    }
+
+    public void addAll(LogEntry[] entries){
+        for(LogEntry entry : entries) add(entry.time(), entry.makespan(), entry.cost(), entry.optimal(), entry.stats());
+    }
+
+    public void clear(){
+        Arrays.fill(stats, 0, size, null);
+        size = 0;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public LogEntry get(int i){
+        return new LogEntry(times[i], makespans[i], costs[i], optimal[i], stats[i]);
+    }
+
+    public LogEntry[] toArray(){
+        LogEntry[] entries = new LogEntry[size];
+        for(int i = 0; i < size; i++) entries[i] = get(i);
+        return entries;
+    }
+}
@@ -0,0 +1,142 @@
+package org.adsp.cpoptimizer;
+
+import ilog.concert.IloException;
+import org.adsp.datamodel.Activity;
+import org.adsp.datamodel.Assignment;
+import org.adsp.datamodel.Instance;
+import org.adsp.datamodel.Solution;
+
+/**
+ * Reusable buffers holding the raw values of an incumbent solution.
+ * Extracting a solution into the buffers does not allocate, the {@link Solution} record is only built on demand.
+ * Optional activities are identified by their resource and their index in the list of activities of the resource.
+ */
+public class SolutionBuffer {
+
+    /**
+     * Gives access to the values of the intervals of a solution.
+     */
+    public interface Reader {
+        int start(int op) throws IloException;
+        int end(int op) throws IloException;
+        boolean isPresent(int res, int act) throws IloException;
+        int start(int res, int act) throws IloException;
+        int end(int res, int act) throws IloException;
+    }
+
+    private final int[] resOps; //Operation of each optional activity, -1 for unavailabilities.
+    private final int[] resReqs; //Requirement of each optional activity.
+    private final int[] resOffsets; //Offset of the activities of each resource in the flat arrays.
+
+    private final int[] opStarts;
+    private final int[] opEnds;
+    private final boolean[] present;
+    private final int[] resStarts;
+    private final int[] resEnds;
+    private int nPresent = 0;
+    private int makespan;
+    private int cost;
+
+    /**
+     * @param nOperations number of operations
+     * @param resOps for each resource, the operation of each of its activities (-1 for unavailabilities)
+     * @param resReqs for each resource, the requirement of the operation fulfilled by each of its activities
+     */
+    public SolutionBuffer(int nOperations, int[][] resOps, int[][] resReqs) {
+        resOffsets = new int[resOps.length + 1];
+        for(int r = 0; r < resOps.length; r++) resOffsets[r+1] = resOffsets[r] + resOps[r].length;
+        int nActs = resOffsets[resOps.length];
+        this.resOps = new int[nActs];
+        this.resReqs = new int[nActs];
+        for(int r = 0; r < resOps.length; r++){
+            System.arraycopy(resOps[r], 0, this.resOps, resOffsets[r], resOps[r].length);
+            System.arraycopy(resReqs[r], 0, this.resReqs, resOffsets[r], resReqs[r].length);
+        }
+
+        opStarts = new int[nOperations];
+        opEnds = new int[nOperations];
+        present = new boolean[nActs];
+        resStarts = new int[nActs];
+        resEnds = new int[nActs];
+    }
+
+    /**
+     * copies the values of a solution into the buffers
+     * @param reader access to the solution values
+     * @param makespan makespan of the solution
+     * @param cost cost of the solution
+     */
+    public void extract(Reader reader, int makespan, int cost) throws IloException {
+        this.makespan = makespan;
+        this.cost = cost;
+        for(int i = 0; i < opStarts.length; i++){
+            opStarts[i] = reader.start(i);
+            opEnds[i] = reader.end(i);
+        }
+        nPresent = 0;
+        for(int r = 0; r < resOffsets.length - 1; r++){
+            for(int k = resOffsets[r]; k < resOffsets[r+1]; k++){
+                int act = k - resOffsets[r];
+                if(resOps[k] >= 0 && reader.isPresent(r, act)){
+                    present[k] = true;
+                    resStarts[k] = reader.start(r, act);
+                    resEnds[k] = reader.end(r, act);
+                    nPresent++;
+                } else present[k] = false;
+            }
+        }
+    }
+
+    /**
+     * builds a solution record from the buffers
+     * @param instance instance solved
+     * @return the solution currently held in the buffers
+     */
+    public Solution toSolution(Instance instance) {
+        Activity[] activities = new Activity[opStarts.length];
+        for(int i = 0; i < opStarts.length; i++) activities[i] = new Activity(i, opStarts[i], opEnds[i]);
+        Assignment[] assignments = new Assignment[nPresent];
+        int a = 0;
+        for(int r = 0; r < resOffsets.length - 1; r++){
+            for(int k = resOffsets[r]; k < resOffsets[r+1]; k++) if(present[k]){
+                assignments[a++] = new Assignment(r, resOps[k], resReqs[k], resStarts[k], resEnds[k]);
+            }
+        }
+        return new Solution(instance, activities, assignments, makespan, cost);
+    }
+
+    public int getMakespan() {
+        return makespan;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public int opStart(int op) {
+        return opStarts[op];
+    }
+
+    public int opEnd(int op) {
+        return opEnds[op];
+    }
+
+    /**
+     * @return the operation of an activity of a resource, -1 if the activity is an unavailability
+     */
+    public int operation(int res, int act) {
+        return resOps[resOffsets[res] + act];
+    }
+
+    public boolean isPresent(int res, int act) {
+        return present[resOffsets[res] + act];
+    }
+
+    public int start(int res, int act) {
+        return resStarts[resOffsets[res] + act];
+    }
+
+    public int end(int res, int act) {
+        return resEnds[resOffsets[res] + act];
+    }
+}
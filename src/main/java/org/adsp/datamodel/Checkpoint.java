@@ -0,0 +1,42 @@
+package org.adsp.datamodel;
+
+import org.adsp.tools.json.JsonWriter;
+
+/**
+ * State of a running search from which the search can be resumed.
+ * @param instance name of the instance
+ * @param instanceHash content hash of the instance, null for checkpoints written without it
+ * @param search kind of search in progress: LEX, ILEX, MK or CST
+ * @param phase index of the phase of the search in progress (0 for the first objective, 1 for the second)
+ * @param makespanLimit upper bound constraint posted on the makespan, Integer.MAX_VALUE if none
+ * @param costLimit upper bound constraint posted on the cost, Integer.MAX_VALUE if none
+ * @param makespanBound best lower bound known for the makespan
+ * @param costBound best lower bound known for the cost
+ * @param timeUsed search time already used (in seconds)
+ * @param solution best solution found so far, null if none
+ * @param log search log so far
+ */
+public record Checkpoint(
+        String instance,
+        String instanceHash,
+        String search,
+        int phase,
+        int makespanLimit,
+        int costLimit,
+        int makespanBound,
+        int costBound,
+        double timeUsed,
+        Solution solution,
+        LogEntry[] log
+) {
+    /**
+     * @return true if the checkpoint was taken on the given instance: same name and, if known, same content hash
+     */
+    public boolean isFor(Instance instance){
+        return this.instance.equals(instance.name()) && (instanceHash == null || instanceHash.equals(instance.contentHash()));
+    }
+
+    public String toString(){
+        return JsonWriter.objectToString(this);
+    }
+}
@@ -0,0 +1,422 @@
+package org.adsp.datamodel;
+
+import org.adsp.tools.TimeWindow;
+
+import java.util.*;
+
+/**
+ * Immutable view of an instance laid out for fast access by the models, heuristics and visualisation.
+ * Zones are encoded as bytes and categories as int ids. The attributes of operations, requirements and resources are
+ * stored in flat arrays, and the precedences, successors, requirements of operations, categories of requirements and
+ * compatible resources of requirements are stored in compressed sparse row form: the elements of row i are stored
+ * between offsets[i] (included) and offsets[i+1] (excluded) of the values array.
+ * The unavailability periods of each resource are sorted and merged, so that availability queries use a binary search.
+ * <p>
+ * Requirements are identified by a global index, the requirements of an operation being consecutive.
+ */
+public final class CompiledInstance {
+    //Zones:
+    public static final byte CENTER = 0; //Also used for locations without zone.
+    public static final byte FWD = 1;
+    public static final byte AFT = 2;
+    public static final byte LH = 3;
+    public static final byte RH = 4;
+
+    private static final Map<Instance, CompiledInstance> cache = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final int nOperations;
+    private final int nResources;
+    private final int nLocations;
+    private final int maxTime;
+
+    //Operations:
+    private final int[] durations;
+    private final int[] locations;
+    private final int[] occupancies;
+    private final int[] masses;
+    private final byte[] zones;
+    private final int[] predOffsets;
+    private final int[] preds;
+    private final int[] succOffsets;
+    private final int[] succs;
+    private final int[] reqOffsets; //Requirements of each operation.
+
+    //Requirements:
+    private final int[] quantities;
+    private final int[] catOffsets;
+    private final int[] cats;
+    private final int[] compatOffsets;
+    private final int[] compats;
+
+    //Locations:
+    private final byte[] locZones;
+    private final int[] capacities;
+
+    //Resources:
+    private final String[] categoryNames;
+    private final int[] resCategories;
+    private final int[] costs;
+    private final int[] calOffsets;
+    private final int[] unavStarts;
+    private final int[] unavEnds;
+
+    /**
+     * @return the compiled view of an instance, built once per instance
+     */
+    public static CompiledInstance of(Instance instance) {
+        //Built outside the lock of the cache so that several instances can be processed in parallel:
+        CompiledInstance cached = cache.get(instance);
+        if(cached != null) return cached;
+        CompiledInstance built = new CompiledInstance(instance);
+        cached = cache.putIfAbsent(instance, built);
+        return cached != null ? cached : built;
+    }
+
+    private CompiledInstance(Instance instance) {
+        Operation[] ops = instance.operations();
+        Resource[] res = instance.resources();
+        Location[] locs = instance.locations();
+        nOperations = ops.length;
+        nResources = res.length;
+        nLocations = locs.length;
+        maxTime = instance.maxTime();
+
+        //Locations:
+        locZones = new byte[nLocations];
+        capacities = new int[nLocations];
+        for(int l = 0; l < nLocations; l++){
+            locZones[l] = zoneOf(locs[l].zone());
+            capacities[l] = locs[l].capacity();
+        }
+
+        //Categories and resources:
+        Map<String, Integer> categoryIds = new LinkedHashMap<>();
+        for(Resource r : res) categoryIds.putIfAbsent(r.category(), categoryIds.size());
+        for(Operation op : ops) for(Requirement req : op.resources()) for(String cat : req.category()) categoryIds.putIfAbsent(cat, categoryIds.size());
+        categoryNames = categoryIds.keySet().toArray(new String[0]);
+        resCategories = new int[nResources];
+        costs = new int[nResources];
+        calOffsets = new int[nResources + 1];
+        ArrayList<int[]> windows = new ArrayList<>();
+        for(int r = 0; r < nResources; r++){
+            resCategories[r] = categoryIds.get(res[r].category());
+            costs[r] = res[r].cost();
+            TimeWindow[] sorted = res[r].unavailable().clone();
+            Arrays.sort(sorted, Comparator.comparingInt(TimeWindow::start));
+            int[] last = null;
+            for(TimeWindow w : sorted){
+                if(w.end() <= w.start()) continue;
+                if(last != null && w.start() <= last[1]) last[1] = Math.max(last[1], w.end()); //Merging overlapping periods.
+                else{
+                    last = new int[]{w.start(), w.end()};
+                    windows.add(last);
+                }
+            }
+            calOffsets[r+1] = windows.size();
+        }
+        unavStarts = new int[windows.size()];
+        unavEnds = new int[windows.size()];
+        for(int k = 0; k < windows.size(); k++){
+            unavStarts[k] = windows.get(k)[0];
+            unavEnds[k] = windows.get(k)[1];
+        }
+
+        //Operations:
+        durations = new int[nOperations];
+        locations = new int[nOperations];
+        occupancies = new int[nOperations];
+        masses = new int[nOperations];
+        zones = new byte[nOperations];
+        predOffsets = new int[nOperations + 1];
+        reqOffsets = new int[nOperations + 1];
+        int[] nSuccs = new int[nOperations];
+        for(int i = 0; i < nOperations; i++){
+            Operation op = ops[i];
+            durations[i] = op.duration();
+            locations[i] = op.location();
+            occupancies[i] = op.occupancy();
+            masses[i] = op.mass();
+            zones[i] = locZones[op.location()];
+            predOffsets[i+1] = predOffsets[i] + op.precedences().length;
+            reqOffsets[i+1] = reqOffsets[i] + op.resources().length;
+            for(int p : op.precedences()) nSuccs[p]++;
+        }
+        preds = new int[predOffsets[nOperations]];
+        succOffsets = new int[nOperations + 1];
+        for(int i = 0; i < nOperations; i++) succOffsets[i+1] = succOffsets[i] + nSuccs[i];
+        succs = new int[succOffsets[nOperations]];
+        int[] succFill = Arrays.copyOf(succOffsets, nOperations);
+        for(int i = 0; i < nOperations; i++){
+            int[] precedences = ops[i].precedences();
+            System.arraycopy(precedences, 0, preds, predOffsets[i], precedences.length);
+            for(int p : precedences) succs[succFill[p]++] = i;
+        }
+
+        //Requirements:
+        int nReqs = reqOffsets[nOperations];
+        quantities = new int[nReqs];
+        catOffsets = new int[nReqs + 1];
+        compatOffsets = new int[nReqs + 1];
+        IntList catList = new IntList();
+        IntList compatList = new IntList();
+        boolean[] reqCats = new boolean[categoryNames.length];
+        int q = 0;
+        for(Operation op : ops){
+            for(Requirement req : op.resources()){
+                quantities[q] = req.quantity();
+                Arrays.fill(reqCats, false);
+                for(String cat : req.category()){
+                    int c = categoryIds.get(cat);
+                    if(!reqCats[c]) catList.add(c);
+                    reqCats[c] = true;
+                }
+                for(int r = 0; r < nResources; r++) if(reqCats[resCategories[r]]) compatList.add(r);
+                catOffsets[q+1] = catList.size;
+                compatOffsets[q+1] = compatList.size;
+                q++;
+            }
+        }
+        cats = catList.toArray();
+        compats = compatList.toArray();
+    }
+
+    /**
+     * @return the zone code of a zone name
+     */
+    public static byte zoneOf(String zone) {
+        if(zone == null) return CENTER;
+        return switch (zone) {
+            case "FWD" -> FWD;
+            case "AFT" -> AFT;
+            case "LH" -> LH;
+            case "RH" -> RH;
+            default -> CENTER;
+        };
+    }
+
+    public int nOperations() {
+        return nOperations;
+    }
+
+    public int nResources() {
+        return nResources;
+    }
+
+    public int nLocations() {
+        return nLocations;
+    }
+
+    public int nRequirements() {
+        return quantities.length;
+    }
+
+    public int nCategories() {
+        return categoryNames.length;
+    }
+
+    public int maxTime() {
+        return maxTime;
+    }
+
+    //Operations:
+
+    public int duration(int op) {
+        return durations[op];
+    }
+
+    public int location(int op) {
+        return locations[op];
+    }
+
+    public int occupancy(int op) {
+        return occupancies[op];
+    }
+
+    public int mass(int op) {
+        return masses[op];
+    }
+
+    public byte zone(int op) {
+        return zones[op];
+    }
+
+    public boolean isForward(int op) {
+        return zones[op] == FWD;
+    }
+
+    public boolean isAft(int op) {
+        return zones[op] == AFT;
+    }
+
+    public boolean isRight(int op) {
+        return zones[op] == RH;
+    }
+
+    public boolean isLeft(int op) {
+        return zones[op] == LH;
+    }
+
+    public int nPredecessors(int op) {
+        return predOffsets[op+1] - predOffsets[op];
+    }
+
+    public int predecessor(int op, int k) {
+        return preds[predOffsets[op] + k];
+    }
+
+    public int nSuccessors(int op) {
+        return succOffsets[op+1] - succOffsets[op];
+    }
+
+    public int successor(int op, int k) {
+        return succs[succOffsets[op] + k];
+    }
+
+    public int nRequirements(int op) {
+        return reqOffsets[op+1] - reqOffsets[op];
+    }
+
+    /**
+     * @return the global index of the k-th requirement of an operation
+     */
+    public int requirement(int op, int k) {
+        return reqOffsets[op] + k;
+    }
+
+    //Requirements:
+
+    public int quantity(int req) {
+        return quantities[req];
+    }
+
+    public int nCategories(int req) {
+        return catOffsets[req+1] - catOffsets[req];
+    }
+
+    public int category(int req, int k) {
+        return cats[catOffsets[req] + k];
+    }
+
+    /**
+     * @return the number of resources that can fulfill a requirement
+     */
+    public int nCompatible(int req) {
+        return compatOffsets[req+1] - compatOffsets[req];
+    }
+
+    /**
+     * @return the k-th resource that can fulfill a requirement, resources being sorted by index
+     */
+    public int compatible(int req, int k) {
+        return compats[compatOffsets[req] + k];
+    }
+
+    public boolean isCompatible(int req, int res) {
+        return Arrays.binarySearch(compats, compatOffsets[req], compatOffsets[req+1], res) >= 0;
+    }
+
+    //Locations:
+
+    public byte locationZone(int loc) {
+        return locZones[loc];
+    }
+
+    public int capacity(int loc) {
+        return capacities[loc];
+    }
+
+    //Resources:
+
+    public String categoryName(int cat) {
+        return categoryNames[cat];
+    }
+
+    public int resourceCategory(int res) {
+        return resCategories[res];
+    }
+
+    public int cost(int res) {
+        return costs[res];
+    }
+
+    /**
+     * @return the number of unavailability periods of a resource, after merging of overlapping periods
+     */
+    public int nUnavailable(int res) {
+        return calOffsets[res+1] - calOffsets[res];
+    }
+
+    public int unavailableStart(int res, int k) {
+        return unavStarts[calOffsets[res] + k];
+    }
+
+    public int unavailableEnd(int res, int k) {
+        return unavEnds[calOffsets[res] + k];
+    }
+
+    //Index of the last unavailability period of a resource starting at or before t, calOffsets[res] - 1 if none.
+    private int lastStartingBefore(int res, int t) {
+        int lo = calOffsets[res], hi = calOffsets[res+1] - 1;
+        while(lo <= hi){
+            int mid = (lo + hi) >>> 1;
+            if(unavStarts[mid] <= t) lo = mid + 1;
+            else hi = mid - 1;
+        }
+        return hi;
+    }
+
+    /**
+     * @return true if a resource is available at time t
+     */
+    public boolean isAvailable(int res, int t) {
+        int k = lastStartingBefore(res, t);
+        return k < calOffsets[res] || unavEnds[k] <= t;
+    }
+
+    /**
+     * @return true if a resource is available during the whole interval [start, end)
+     */
+    public boolean isAvailable(int res, int start, int end) {
+        if(end <= start) return true;
+        int k = lastStartingBefore(res, end - 1);
+        return k < calOffsets[res] || unavEnds[k] <= start;
+    }
+
+    /**
+     * @return the first time at or after t at which a resource is available
+     */
+    public int nextAvailable(int res, int t) {
+        int k = lastStartingBefore(res, t);
+        return k >= calOffsets[res] && unavEnds[k] > t ? unavEnds[k] : t;
+    }
+
+    /**
+     * @return the first time at or after t at which a resource is available during a whole period of the given
+     * duration
+     */
+    public int nextAvailable(int res, int t, int duration) {
+        t = nextAvailable(res, t);
+        int k = lastStartingBefore(res, t) + 1;
+        //Jumping after each period that starts before the end of the candidate interval:
+        while(k < calOffsets[res+1] && unavStarts[k] < t + duration){
+            t = unavEnds[k];
+            k++;
+        }
+        return t;
+    }
+
+    //Growable list of ints used during construction.
+    private static class IntList {
+        int[] values = new int[64];
+        int size = 0;
+
+        void add(int v) {
+            if(size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
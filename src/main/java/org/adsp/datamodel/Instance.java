@@ -1,5 +1,6 @@
 package org.adsp.datamodel;
 
+import org.adsp.tools.CriticalPath;
 import org.adsp.tools.json.JsonWriter;
 
 import java.util.Arrays;
@@ -22,41 +23,34 @@ public record Instance(
     }
 
     public boolean isForward(int o){
-        return locations[operations[o].location()].isForward();
+        return compiled().isForward(o);
     }
 
     public boolean isAft(int o){
-        return locations[operations[o].location()].isAft();
+        return compiled().isAft(o);
     }
 
     public boolean isRight(int o){
-        return locations[operations[o].location()].isRight();
+        return compiled().isRight(o);
     }
 
     public boolean isLeft(int o){
-        return locations[operations[o].location()].isLeft();
+        return compiled().isLeft(o);
     }
 
-    public int makespanLB(){
-        int[] ests = new int[operations().length];
-        boolean[] cached = new boolean[operations().length];
-        int maxEct = 0;
-        for(int i = 0; i < ests.length; i++){
-            int opEct = (cached[i] ? ests[i] : computeEst(i, ests, cached)) + operations()[i].duration();
-            if(opEct > maxEct) maxEct = opEct;
-        }
-        return maxEct;
+    /**
+     * @return the compiled view of the instance, built on first use
+     */
+    public CompiledInstance compiled(){
+        return CompiledInstance.of(this);
     }
 
-    private int computeEst(int i, int[] ests, boolean[] cached) {
-        int est = 0;
-        for(int p : operations()[i].precedences()){
-            int pect = cached[p] ? ests[p] : computeEst(p, ests, cached) + operations()[p].duration();
-            if(pect > est) est = pect;
-        }
-        ests[i] = est;
-        cached[i] = true;
-        return est;
+    /**
+     * @return the length of the critical path of the precedence graph
+     * @see CriticalPath
+     */
+    public int makespanLB(){
+        return new CriticalPath(compiled()).length();
     }
 
     public int makespanUB(){
@@ -109,6 +103,13 @@ public record Instance(
         return maxCostPerCat;
     }
 
+    /**
+     * @return the SHA-256 hash of the compact json encoding of the instance, in hexadecimal
+     */
+    public String contentHash(){
+        return JsonWriter.contentHash(this);
+    }
+
     public String toString(){
         return JsonWriter.objectToString(this);
     }
@@ -0,0 +1,18 @@
+package org.adsp.datamodel;
+
+import org.adsp.tools.json.JsonWriter;
+
+/**
+ * Reference to an instance stored in a separate file.
+ * @param id id of the instance
+ * @param hash SHA-256 hash of the content of the instance, see {@link Instance#contentHash()}
+ */
+public record InstanceRef(String id, String hash) {
+    public static InstanceRef of(Instance instance){
+        return new InstanceRef(instance.id(), instance.contentHash());
+    }
+
+    public String toString(){
+        return JsonWriter.objectToString(this);
+    }
+}
@@ -1,45 +1,34 @@
 package org.adsp.datamodel;
 
-public record Log(String instance, int makespanBound, int costBound, LogEntry[] log) {
+import com.fasterxml.jackson.annotation.JsonInclude;
 
-    public int bestMakespan() {
-        int bestObj = Integer.MAX_VALUE;
-        for(LogEntry entry: log){
-            if(entry.makespan() < bestObj) bestObj = entry.makespan();
-        }
-        return bestObj;
+public record Log(String instance, int makespanBound, int costBound, LogEntry[] log, @JsonInclude(JsonInclude.Include.NON_NULL) SolverStats summary) {
+
+    public Log(String instance, int makespanBound, int costBound, LogEntry[] log){
+        this(instance, makespanBound, costBound, log, null);
     }
 
-    public int bestCost() {
-        int bestObj = Integer.MAX_VALUE;
-        for(LogEntry entry: log){
-            if(entry.cost() < bestObj) bestObj = entry.cost();
-        }
-        return bestObj;
+    /**
+     * @return the index of the log, built on first use
+     */
+    public LogIndex index(){
+        return LogIndex.of(this);
     }
 
-    public double timeToBestMakespan() {
-        int bestObj = Integer.MAX_VALUE;
-        double bestT = Integer.MAX_VALUE;
-        for(LogEntry entry: log){
-            if(entry.makespan() < bestObj || (entry.makespan() == bestObj && entry.time() < bestT)){
-                bestObj = entry.makespan();
-                bestT = entry.time();
-            }
-        }
-        return bestT;
+    public int bestMakespan(){
+        return index().bestFrom(true, Double.NEGATIVE_INFINITY);
     }
 
-    public double timeToBestCost() {
-        int bestObj = Integer.MAX_VALUE;
-        double bestT = Integer.MAX_VALUE;
-        for(LogEntry entry: log){
-            if(entry.cost() < bestObj || (entry.cost() == bestObj && entry.time() < bestT)){
-                bestObj = entry.cost();
-                bestT = entry.time();
-            }
-        }
-        return bestT;
+    public int bestCost(){
+        return index().bestFrom(false, Double.NEGATIVE_INFINITY);
+    }
+
+    public double timeToBestMakespan(){
+        return index().timeToBestFrom(true, Double.NEGATIVE_INFINITY);
+    }
+
+    public double timeToBestCost(){
+        return index().timeToBestFrom(false, Double.NEGATIVE_INFINITY);
     }
 
     public boolean isMakespanOpti(){
@@ -74,85 +63,153 @@ public record Log(String instance, int makespanBound, int costBound, LogEntry[]
         return log.length > 0 ? log[log.length-1].time() : Integer.MAX_VALUE;
     }
 
+    /**
+     * @return the primal integral of the makespan up to a time limit
+     * @see LogIndex#primalIntegral(boolean, double, double)
+     */
+    public double makespanPrimalIntegral(double timeLimit){
+        return index().primalIntegral(true, timeLimit);
+    }
+
+    /**
+     * @return the primal integral of the cost up to a time limit
+     * @see LogIndex#primalIntegral(boolean, double, double)
+     */
+    public double costPrimalIntegral(double timeLimit){
+        return index().primalIntegral(false, timeLimit);
+    }
+
+    /**
+     * @return the first time at which the makespan is lower or equal to a target, Double.MAX_VALUE if never
+     */
+    public double timeToMakespan(int target){
+        return index().timeToTarget(true, target);
+    }
+
+    /**
+     * @return the first time at which the cost is lower or equal to a target, Double.MAX_VALUE if never
+     */
+    public double timeToCost(int target){
+        return index().timeToTarget(false, target);
+    }
+
+    /**
+     * @return the gap of the best makespan found by a time, Double.POSITIVE_INFINITY if no solution is found by then
+     */
+    public double makespanGapAt(double time){
+        return index().gapAt(true, time);
+    }
+
+    /**
+     * @return the gap of the best cost found by a time, Double.POSITIVE_INFINITY if no solution is found by then
+     */
+    public double costGapAt(double time){
+        return index().gapAt(false, time);
+    }
+
     public static double gap(double obj, double bound){
         return (obj - bound) / bound;
     }
 
     public boolean isLex(){
-        int lastMakespan = Integer.MAX_VALUE;
-        int lastCost = Integer.MAX_VALUE;
-        for(LogEntry entry: log()){
-            if(lastMakespan == entry.makespan() && lastCost == entry.cost()) {
-                return true;
-            } else{
-                lastMakespan = entry.makespan();
-                lastCost = entry.cost();
-            }
-        }
-        return false;
+        return index().secondSearchStart() != Double.MAX_VALUE;
     }
 
     public double secondSearchStart(){
-        int lastMakespan = Integer.MAX_VALUE;
-        int lastCost = Integer.MAX_VALUE;
-        for(LogEntry entry: log()){
-            if(lastMakespan == entry.makespan() && lastCost == entry.cost()) {
-                return entry.time();
-            } else{
-                lastMakespan = entry.makespan();
-                lastCost = entry.cost();
-            }
-        }
-        return Double.MAX_VALUE;
+        return index().secondSearchStart();
     }
 
-    public int bestMakespanFrom(double time) {
-        int bestObj = Integer.MAX_VALUE;
-        for(LogEntry entry: log) if(entry.time() >= time){
-            if(entry.makespan() < bestObj) bestObj = entry.makespan();
-        }
-        return bestObj;
+    public int bestMakespanFrom(double time){
+        return index().bestFrom(true, time);
     }
 
-    public int bestCostFrom(double time) {
-        int bestObj = Integer.MAX_VALUE;
-        for(LogEntry entry: log) if(entry.time() >= time){
-            if(entry.cost() < bestObj) bestObj = entry.cost();
-        }
-        return bestObj;
+    public int bestCostFrom(double time){
+        return index().bestFrom(false, time);
     }
 
-    public double timeToBestMakespanFrom(double time) {
-        int bestObj = Integer.MAX_VALUE;
-        double bestT = Integer.MAX_VALUE;
-        for(LogEntry entry: log) if(entry.time() >= time){
-            if(entry.makespan() < bestObj || (entry.makespan() == bestObj && entry.time() < bestT)){
-                bestObj = entry.makespan();
-                bestT = entry.time();
-            }
-        }
-        return bestT;
+    public double timeToBestMakespanFrom(double time){
+        return index().timeToBestFrom(true, time);
     }
 
-    public double timeToBestCostFrom(double time) {
-        int bestObj = Integer.MAX_VALUE;
-        double bestT = Integer.MAX_VALUE;
-        for(LogEntry entry: log) if(entry.time() >= time){
-            if(entry.cost() < bestObj || (entry.cost() == bestObj && entry.time() < bestT)){
-                bestObj = entry.cost();
-                bestT = entry.time();
-            }
-        }
-        return bestT;
+    public double timeToBestCostFrom(double time){
+        return index().timeToBestFrom(false, time);
     }
 
     public int firstMakespanFrom(double time){
-        for(LogEntry entry: log) if(entry.time() >= time) return entry.makespan();
-        return Integer.MAX_VALUE;
+        return index().firstFrom(true, time);
     }
 
     public int firstCostFrom(double time){
-        for(LogEntry entry: log) if(entry.time() >= time) return entry.cost();
-        return Integer.MAX_VALUE;
+        return index().firstFrom(false, time);
+    }
+
+    /**
+     * @return the gap reported by the solver for each entry of the log, NaN for entries without solver statistics
+     */
+    public double[] gapOverTime(){
+        double[] gaps = new double[log.length];
+        for(int i = 0; i < log.length; i++) gaps[i] = log[i].stats() != null ? log[i].stats().gap() : Double.NaN;
+        return gaps;
+    }
+
+    /**
+     * @return the objective bound reported by the solver for each entry of the log, NaN for entries without solver
+     * statistics
+     */
+    public double[] boundOverTime(){
+        double[] bounds = new double[log.length];
+        for(int i = 0; i < log.length; i++) bounds[i] = log[i].stats() != null ? log[i].stats().objBound() : Double.NaN;
+        return bounds;
+    }
+
+    /**
+     * @return the number of fails per second of solve time in the last search phase, NaN if unknown
+     */
+    public double failsPerSecond(){
+        SolverStats stats = lastStats();
+        return stats != null && stats.solveTime() > 0 ? stats.fails() / stats.solveTime() : Double.NaN;
+    }
+
+    /**
+     * @return the number of branches per second of solve time in the last search phase, NaN if unknown
+     */
+    public double branchesPerSecond(){
+        SolverStats stats = lastStats();
+        return stats != null && stats.solveTime() > 0 ? stats.branches() / stats.solveTime() : Double.NaN;
+    }
+
+    /**
+     * @return the number of fails per second of solve time between each entry of the log and the previous one in the
+     * same search phase, NaN if unknown
+     */
+    public double[] failsPerSecondOverTime(){
+        double[] rates = new double[log.length];
+        SolverStats prev = null;
+        for(int i = 0; i < log.length; i++){
+            SolverStats stats = log[i].stats();
+            if(stats == null) rates[i] = Double.NaN;
+            else if(prev == null || stats.solveTime() < prev.solveTime()) //First entry of a phase
+                rates[i] = stats.solveTime() > 0 ? stats.fails() / stats.solveTime() : Double.NaN;
+            else{
+                double dt = stats.solveTime() - prev.solveTime();
+                rates[i] = dt > 0 ? (stats.fails() - prev.fails()) / dt : Double.NaN;
+            }
+            prev = stats;
+        }
+        return rates;
+    }
+
+    /**
+     * @return the peak memory usage of the solver over the log, 0 if unknown
+     */
+    public long peakMemory(){
+        long peak = summary != null ? summary.memory() : 0;
+        for(LogEntry entry: log) if(entry.stats() != null && entry.stats().memory() > peak) peak = entry.stats().memory();
+        return peak;
+    }
+
+    private SolverStats lastStats(){
+        if(summary != null) return summary;
+        return log.length > 0 ? log[log.length-1].stats() : null;
     }
 }
@@ -1,4 +1,9 @@
 package org.adsp.datamodel;
 
-public record LogEntry(double time, int makespan, int cost, boolean optimal) {
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+public record LogEntry(double time, int makespan, int cost, boolean optimal, @JsonInclude(JsonInclude.Include.NON_NULL) SolverStats stats) {
+    public LogEntry(double time, int makespan, int cost, boolean optimal){
+        this(time, makespan, cost, optimal, null);
+    }
 }
@@ -0,0 +1,236 @@
+package org.adsp.datamodel;
+
+import java.util.*;
+
+/**
+ * Summary of a log built in a single pass, so that the analytics of the log do not rescan its entries.
+ * Entries are sorted by time. For each objective, the index holds the best value found up to each entry (prefix minima)
+ * and the best value found from each entry onward (suffix minima) along with the time at which it is first reached,
+ * so that queries on a time range are answered by a binary search on the times.
+ * <p>
+ * The index also provides anytime metrics: the primal integral, the time to reach a target value and the gap at a
+ * given time.
+ */
+public final class LogIndex {
+    private static final Map<Log, LogIndex> cache = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final int makespanBound;
+    private final int costBound;
+    private final double[] times; //Sorted.
+    private final int[] makespans;
+    private final int[] costs;
+    private final int[] prefixMakespans; //Best makespan among entries 0..k.
+    private final int[] prefixCosts;
+    private final int[] suffixMakespans; //Best makespan among entries k..n-1.
+    private final int[] suffixCosts;
+    private final double[] suffixMakespanTimes; //Time at which the best makespan among entries k..n-1 is first reached.
+    private final double[] suffixCostTimes;
+    private final double secondSearchStart;
+
+    /**
+     * @return the index of a log, built once per log
+     */
+    public static LogIndex of(Log log) {
+        //Built outside the lock of the cache so that several logs can be processed in parallel:
+        LogIndex cached = cache.get(log);
+        if(cached != null) return cached;
+        LogIndex built = new LogIndex(log);
+        cached = cache.putIfAbsent(log, built);
+        return cached != null ? cached : built;
+    }
+
+    private LogIndex(Log log) {
+        LogEntry[] entries = log.log();
+        int n = entries.length;
+        makespanBound = log.makespanBound();
+        costBound = log.costBound();
+
+        //Second search start, detected on the order of the log:
+        double second = Double.MAX_VALUE;
+        for(int i = 1; i < n; i++){
+            if(entries[i].makespan() == entries[i-1].makespan() && entries[i].cost() == entries[i-1].cost()){
+                second = entries[i].time();
+                break;
+            }
+        }
+        secondSearchStart = second;
+
+        //Sorting entries by time (stable, logs are usually already sorted):
+        boolean sorted = true;
+        for(int i = 1; i < n && sorted; i++) sorted = entries[i-1].time() <= entries[i].time();
+        if(!sorted){
+            entries = entries.clone();
+            Arrays.sort(entries, Comparator.comparingDouble(LogEntry::time));
+        }
+
+        times = new double[n];
+        makespans = new int[n];
+        costs = new int[n];
+        prefixMakespans = new int[n];
+        prefixCosts = new int[n];
+        int bestMakespan = Integer.MAX_VALUE;
+        int bestCost = Integer.MAX_VALUE;
+        for(int i = 0; i < n; i++){
+            times[i] = entries[i].time();
+            makespans[i] = entries[i].makespan();
+            costs[i] = entries[i].cost();
+            bestMakespan = Math.min(bestMakespan, makespans[i]);
+            bestCost = Math.min(bestCost, costs[i]);
+            prefixMakespans[i] = bestMakespan;
+            prefixCosts[i] = bestCost;
+        }
+
+        suffixMakespans = new int[n + 1];
+        suffixCosts = new int[n + 1];
+        suffixMakespanTimes = new double[n + 1];
+        suffixCostTimes = new double[n + 1];
+        suffixMakespans[n] = Integer.MAX_VALUE;
+        suffixCosts[n] = Integer.MAX_VALUE;
+        suffixMakespanTimes[n] = Integer.MAX_VALUE;
+        suffixCostTimes[n] = Integer.MAX_VALUE;
+        for(int i = n - 1; i >= 0; i--){
+            boolean betterMakespan = makespans[i] <= suffixMakespans[i+1]; //Ties are first reached at the earliest entry.
+            suffixMakespans[i] = betterMakespan ? makespans[i] : suffixMakespans[i+1];
+            suffixMakespanTimes[i] = betterMakespan ? times[i] : suffixMakespanTimes[i+1];
+            boolean betterCost = costs[i] <= suffixCosts[i+1];
+            suffixCosts[i] = betterCost ? costs[i] : suffixCosts[i+1];
+            suffixCostTimes[i] = betterCost ? times[i] : suffixCostTimes[i+1];
+        }
+    }
+
+    public int size() {
+        return times.length;
+    }
+
+    public double secondSearchStart() {
+        return secondSearchStart;
+    }
+
+    //Index of the first entry at or after a time, size() if none.
+    private int firstFrom(double time) {
+        int lo = 0, hi = times.length;
+        while(lo < hi){
+            int mid = (lo + hi) >>> 1;
+            if(times[mid] < time) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    //Index of the last entry at or before a time, -1 if none.
+    private int lastUntil(double time) {
+        int lo = 0, hi = times.length;
+        while(lo < hi){
+            int mid = (lo + hi) >>> 1;
+            if(times[mid] <= time) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo - 1;
+    }
+
+    /**
+     * @return the best value of an objective among the entries at or after a time, Integer.MAX_VALUE if none
+     */
+    public int bestFrom(boolean onMakespan, double time) {
+        int k = firstFrom(time);
+        return onMakespan ? suffixMakespans[k] : suffixCosts[k];
+    }
+
+    /**
+     * @return the time at which the best value of an objective among the entries at or after a time is first reached,
+     * Integer.MAX_VALUE if none
+     */
+    public double timeToBestFrom(boolean onMakespan, double time) {
+        int k = firstFrom(time);
+        return onMakespan ? suffixMakespanTimes[k] : suffixCostTimes[k];
+    }
+
+    /**
+     * @return the value of an objective in the first entry at or after a time, Integer.MAX_VALUE if none
+     */
+    public int firstFrom(boolean onMakespan, double time) {
+        int k = firstFrom(time);
+        if(k == times.length) return Integer.MAX_VALUE;
+        return onMakespan ? makespans[k] : costs[k];
+    }
+
+    /**
+     * @return the time of the first entry at or after a time, Integer.MAX_VALUE if none
+     */
+    public double firstTimeFrom(double time) {
+        int k = firstFrom(time);
+        return k < times.length ? times[k] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return the best value of an objective found by a time, Integer.MAX_VALUE if none
+     */
+    public int bestAt(boolean onMakespan, double time) {
+        int k = lastUntil(time);
+        if(k < 0) return Integer.MAX_VALUE;
+        return onMakespan ? prefixMakespans[k] : prefixCosts[k];
+    }
+
+    /**
+     * @return the first time at which the value of an objective is lower or equal to a target, Double.MAX_VALUE if the
+     * target is never reached
+     */
+    public double timeToTarget(boolean onMakespan, int target) {
+        int[] prefix = onMakespan ? prefixMakespans : prefixCosts;
+        //Prefix minima are non-increasing:
+        int lo = 0, hi = prefix.length;
+        while(lo < hi){
+            int mid = (lo + hi) >>> 1;
+            if(prefix[mid] > target) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo < prefix.length ? times[lo] : Double.MAX_VALUE;
+    }
+
+    /**
+     * @return the gap between the best value of an objective found by a time and the bound of the log,
+     * Double.POSITIVE_INFINITY if no solution is found by this time
+     */
+    public double gapAt(boolean onMakespan, double time) {
+        int best = bestAt(onMakespan, time);
+        if(best == Integer.MAX_VALUE) return Double.POSITIVE_INFINITY;
+        return Log.gap(best, onMakespan ? makespanBound : costBound);
+    }
+
+    /**
+     * @return the primal integral of an objective up to a time limit, with the bound of the log as reference
+     */
+    public double primalIntegral(boolean onMakespan, double timeLimit) {
+        return primalIntegral(onMakespan, onMakespan ? makespanBound : costBound, timeLimit);
+    }
+
+    /**
+     * computes the primal integral of an objective: the integral over time of the primal gap of the best solution
+     * found so far, the primal gap being 1 before the first solution and |best - reference| / max(|best|, |reference|)
+     * afterwards. Lower is better: it accounts both for the quality of the solutions and the time needed to find them.
+     * @param reference best known value of the objective
+     * @param timeLimit end of the integration
+     * @return the primal integral, in seconds
+     */
+    public double primalIntegral(boolean onMakespan, double reference, double timeLimit) {
+        int[] prefix = onMakespan ? prefixMakespans : prefixCosts;
+        double integral = 0;
+        double t = 0;
+        double gap = 1;
+        for(int k = 0; k < times.length && times[k] < timeLimit; k++){
+            if(times[k] > t){
+                integral += gap * (times[k] - t);
+                t = times[k];
+            }
+            gap = primalGap(prefix[k], reference);
+        }
+        if(timeLimit > t) integral += gap * (timeLimit - t);
+        return integral;
+    }
+
+    private static double primalGap(double best, double reference) {
+        if(best == reference) return 0;
+        double scale = Math.max(Math.abs(best), Math.abs(reference));
+        return Math.abs(best - reference) / scale;
+    }
+}
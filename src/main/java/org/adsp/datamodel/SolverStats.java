@@ -0,0 +1,15 @@
+package org.adsp.datamodel;
+
+/**
+ * Statistics of the solver at a given moment of the search.
+ * Search counters and solve time are those of the current search phase.
+ * @param objBound best bound known for the objective of the current phase
+ * @param gap relative gap between the objective value and its bound
+ * @param branches number of branches explored
+ * @param fails number of fails
+ * @param memory memory used by the solver (in bytes)
+ * @param workers number of workers effectively used
+ * @param solveTime time spent in the current search phase according to the solver (in seconds)
+ */
+public record SolverStats(double objBound, double gap, long branches, long fails, long memory, int workers, double solveTime) {
+}
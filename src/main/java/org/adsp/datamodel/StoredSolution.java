@@ -0,0 +1,37 @@
+package org.adsp.datamodel;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.adsp.tools.json.JsonWriter;
+
+/**
+ * Layout of a solution file. The instance solved is either embedded in the file or referenced by its id and content
+ * hash, in which case exactly one of instance and instanceRef is not null.
+ */
+public record StoredSolution(
+        @JsonInclude(JsonInclude.Include.NON_NULL) Instance instance,
+        @JsonInclude(JsonInclude.Include.NON_NULL) InstanceRef instanceRef,
+        Activity[] activities,
+        Assignment[] assignments,
+        int makespan,
+        int cost
+) {
+    /**
+     * @param solution solution to store
+     * @param ref reference to the instance of the solution, null to embed the instance
+     */
+    public StoredSolution(Solution solution, InstanceRef ref){
+        this(ref == null ? solution.instance() : null, ref, solution.activities(), solution.assignments(), solution.makespan(), solution.cost());
+    }
+
+    /**
+     * @param instance instance solved, used if the instance is referenced
+     * @return the solution
+     */
+    public Solution toSolution(Instance instance){
+        return new Solution(this.instance != null ? this.instance : instance, activities, assignments, makespan, cost);
+    }
+
+    public String toString(){
+        return JsonWriter.objectToString(this);
+    }
+}
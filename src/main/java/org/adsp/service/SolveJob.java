@@ -0,0 +1,242 @@
+package org.adsp.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.adsp.Launcher;
+import org.adsp.cpoptimizer.AbstractOptionalIntervalModel;
+import org.adsp.cpoptimizer.ModelPool;
+import org.adsp.datamodel.Instance;
+import org.adsp.datamodel.LogEntry;
+import org.adsp.datamodel.Solution;
+import org.adsp.tools.json.JsonWriter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * Search of an instance submitted to the solve service. The job keeps the events of the search (incumbents, bounds and
+ * changes of status) so that they can be streamed to any number of clients, and can be cancelled from any thread,
+ * whether it is still queued or running.
+ */
+public class SolveJob implements Runnable {
+    public enum Status {QUEUED, RUNNING, DONE, CANCELLED, FAILED}
+
+    /**
+     * Event of a job, written as a line of json in the event stream.
+     * @param event kind of event: the new status of the job or "solution" for a new incumbent
+     * @param time time since the submission of the job (in seconds)
+     * @param makespan makespan of the incumbent or of the best solution
+     * @param cost cost of the incumbent or of the best solution
+     * @param objBound bound of the objective of the search phase in progress
+     * @param makespanBound best known lower bound for the makespan
+     * @param costBound best known lower bound for the cost
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Event(String event, double time, Integer makespan, Integer cost, Double objBound, Integer makespanBound, Integer costBound) {
+        Event(String event, double time){
+            this(event, time, null, null, null, null, null);
+        }
+    }
+
+    /**
+     * State of a job as returned by the service.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record State(String id, String instance, String model, String search, Status status, Integer makespan, Integer cost, Integer makespanBound, Integer costBound, String outputPath) {
+    }
+
+    private final String id;
+    private final Instance instance;
+    private final String model;
+    private final String search;
+    private final Map<String, String> options; //Search options, with the names of the options of the Launcher.
+    private final String outputPath;
+    private final ModelPool pool;
+    private final long submitted = System.nanoTime();
+
+    private volatile Status status = Status.QUEUED;
+    private AbstractOptionalIntervalModel solver; //Model of the search in progress, returned to the pool at the end.
+    private Solution result; //Best solution found once the search has ended.
+    private Integer makespanBound;
+    private Integer costBound;
+    private Future<?> future;
+    private boolean cancelled = false;
+    private final List<String> events = new ArrayList<>(); //Events as json lines.
+    private boolean lastEvent = false; //Whether the final event of the job has been added.
+
+    public SolveJob(String id, Instance instance, String model, String search, Map<String, String> options, String outputPath, ModelPool pool) {
+        this.id = id;
+        this.instance = instance;
+        this.model = model;
+        this.search = search;
+        this.options = options;
+        this.outputPath = outputPath;
+        this.pool = pool;
+        addEvent(new Event("queued", 0), false);
+    }
+
+    @Override
+    public void run() {
+        synchronized (this) {
+            if(cancelled) return;
+            status = Status.RUNNING;
+        }
+        addEvent(new Event("started", elapsed()), false);
+        AbstractOptionalIntervalModel created = null;
+        try {
+            created = pool.checkout(model, instance);
+            configure(created);
+            synchronized (this) {
+                solver = created;
+                if(cancelled) solver.cancel(); //Cancelled while the model was built.
+            }
+            Launcher.runSearch(created, search);
+            end(created, created.isCancelled() ? Status.CANCELLED : Status.DONE);
+        } catch (RuntimeException e) {
+            System.out.println("Error: search of job " + id + " failed!");
+            e.printStackTrace();
+            end(created, Status.FAILED);
+        } finally {
+            if(!isFinished()) end(created, Status.FAILED); //The model must be released by the job before its checkin.
+            if(created != null) pool.checkin(created);
+            finish();
+        }
+    }
+
+    //Keeps the results of the search so that the model can be returned to the pool.
+    private synchronized void end(AbstractOptionalIntervalModel created, Status status){
+        if(created != null){
+            result = created.getSolution();
+            makespanBound = created.getMakespanBound();
+            costBound = created.getCostBound();
+        }
+        solver = null;
+        this.status = status;
+    }
+
+    //Applies the search options of the job to the solver.
+    private void configure(AbstractOptionalIntervalModel solver){
+        solver.setSilent(true);
+        if(options.containsKey("t")) solver.setTimeLimit(Double.parseDouble(options.get("t")));
+        if(options.containsKey("t2")) solver.setSecondTimeLimit(Double.parseDouble(options.get("t2")));
+        if(options.containsKey("f")) solver.setFailLimit(Integer.parseInt(options.get("f")));
+        solver.setWorkers(options.containsKey("n") ? Integer.parseInt(options.get("n")) : 1);
+        if(options.containsKey("si")) solver.setSolutionInterval(Double.parseDouble(options.get("si")));
+        if(options.containsKey("ref")) solver.setSolutionsByReference(true);
+        solver.setOnProgress(this::onProgress);
+        solver.setOutputPath(outputPath);
+    }
+
+    //Called by the solver thread during the search, while the model is still held by the job.
+    private void onProgress(LogEntry entry){
+        Integer makespanBound;
+        Integer costBound;
+        synchronized (this) {
+            makespanBound = solver != null ? Integer.valueOf(solver.getMakespanBound()) : null;
+            costBound = solver != null ? Integer.valueOf(solver.getCostBound()) : null;
+        }
+        addEvent(new Event(
+                "solution",
+                elapsed(),
+                entry.makespan(),
+                entry.cost(),
+                entry.stats() != null ? entry.stats().objBound() : null,
+                makespanBound,
+                costBound
+        ), false);
+    }
+
+    //Records the final event of the job.
+    private void finish(){
+        State state = getState();
+        addEvent(new Event(status.name().toLowerCase(), elapsed(), state.makespan(), state.cost(), null, state.makespanBound(), state.costBound()), true);
+    }
+
+    /**
+     * Cancels the job. A queued job is removed from the queue and a running search is stopped as if its limits were
+     * reached: the best solution found is kept and the results are written.
+     */
+    public void cancel(){
+        synchronized (this) {
+            if(cancelled || isFinished()) return;
+            cancelled = true;
+            if(solver != null){
+                solver.cancel();
+                return;
+            }
+            if(status != Status.QUEUED) return; //Cancelled once the model is built.
+            status = Status.CANCELLED;
+            if(future != null) future.cancel(false);
+        }
+        finish();
+    }
+
+    synchronized void setFuture(Future<?> future){
+        this.future = future;
+    }
+
+    public boolean isFinished(){
+        return status != Status.QUEUED && status != Status.RUNNING;
+    }
+
+    private void addEvent(Event event, boolean last){
+        String line = JsonWriter.objectToCompactString(event);
+        synchronized (events) {
+            events.add(line);
+            lastEvent = last;
+            events.notifyAll();
+        }
+    }
+
+    /**
+     * Waits for the events following the given number of events already read.
+     * @param from number of events already read
+     * @return the new events, empty once the job is finished and all its events have been read
+     */
+    public List<String> nextEvents(int from) throws InterruptedException {
+        synchronized (events) {
+            while(events.size() <= from && !lastEvent) events.wait();
+            return new ArrayList<>(events.subList(Math.min(from, events.size()), events.size()));
+        }
+    }
+
+    /**
+     * @return the best solution found so far, null if none
+     */
+    public synchronized Solution getSolution(){
+        //The model is only read under the lock of the job: it is returned to the pool after end(), which takes the lock.
+        return solver != null ? solver.getSolution() : result;
+    }
+
+    public State getState(){
+        Solution sol;
+        Integer makespanBound;
+        Integer costBound;
+        synchronized (this) {
+            sol = getSolution();
+            makespanBound = solver != null ? Integer.valueOf(solver.getMakespanBound()) : this.makespanBound;
+            costBound = solver != null ? Integer.valueOf(solver.getCostBound()) : this.costBound;
+        }
+        return new State(
+                id,
+                instance.name(),
+                model,
+                search,
+                status,
+                sol != null ? sol.makespan() : null,
+                sol != null ? sol.cost() : null,
+                makespanBound,
+                costBound,
+                outputPath
+        );
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    private double elapsed(){
+        return (double) (System.nanoTime() - submitted) / 1000000000;
+    }
+}
@@ -0,0 +1,258 @@
+package org.adsp.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.adsp.Launcher;
+import org.adsp.cpoptimizer.ModelPool;
+import org.adsp.datamodel.Instance;
+import org.adsp.datamodel.Solution;
+import org.adsp.tools.json.JsonReader;
+import org.adsp.tools.json.JsonWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-running solve service with a local HTTP API. Instances submitted to the service are queued and solved by a
+ * bounded number of solver slots, within the same JVM. The models built are kept in a {@link ModelPool} so that new
+ * searches on an instance already solved do not build its model again. The results of each job are written in the
+ * usual layout in a folder of the output path named after the job id. Job ids follow the ones found in the output path,
+ * so that the results of previous runs of the service are kept.
+ * <p>
+ * Endpoints:
+ * <ul>
+ *     <li>{@code POST /jobs?model=<model>&search=<search>&t=..&t2=..&f=..&n=..&si=..&ref}: submits the instance in json
+ *     given as body, with the same models, searches and options as the Launcher. Returns the state of the job.</li>
+ *     <li>{@code GET /jobs}: states of all the jobs.</li>
+ *     <li>{@code GET /jobs/<id>}: state of a job with its best solution values and bounds.</li>
+ *     <li>{@code GET /jobs/<id>/events}: stream of the events of a job (one json object per line) until it ends.</li>
+ *     <li>{@code GET /jobs/<id>/solution}: best solution found so far.</li>
+ *     <li>{@code DELETE /jobs/<id>}: cancels a job. The best solution found is kept and the results are written.</li>
+ * </ul>
+ * Only the last finished jobs are kept by the service, the results of the older ones remain in the output path.
+ */
+public class SolveService {
+    private static final int QUEUE_CAPACITY = 100; //Maximum number of jobs waiting for a slot.
+    private static final int FINISHED_JOBS_KEPT = 100; //Number of finished jobs kept, the oldest ones are forgotten.
+
+    private final HttpServer server;
+    private final ThreadPoolExecutor slots;
+    private final String outputPath;
+    private final ModelPool pool;
+    private final Map<String, SolveJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId;
+
+    /**
+     * @param address address the service listens to
+     * @param nSlots number of searches run at the same time
+     * @param outputPath folder in which the results of the jobs are written
+     * @param poolMemory maximum memory of the models kept between jobs (in bytes)
+     */
+    public SolveService(InetSocketAddress address, int nSlots, String outputPath, long poolMemory) throws IOException {
+        this.outputPath = outputPath;
+        nextId = new AtomicInteger(lastJobId(outputPath));
+        pool = new ModelPool(Launcher::createSolver, poolMemory);
+        slots = new ThreadPoolExecutor(nSlots, nSlots, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+            Thread thread = new Thread(r, "solver-slot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(address, 0);
+        server.createContext("/jobs", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "solve-service");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    public void start(){
+        server.start();
+        System.out.println("Solve service listening on " + server.getAddress() + " with " + slots.getMaximumPoolSize() + " solver slots");
+    }
+
+    /**
+     * Stops accepting requests and cancels the jobs, which still write their results.
+     */
+    public void stop(){
+        server.stop(0);
+        jobs.values().forEach(SolveJob::cancel);
+        slots.shutdown();
+        try {
+            slots.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pool.clear();
+    }
+
+    /**
+     * Starts the service and keeps it running until the JVM is stopped.
+     * @param address host and port to listen to, such as localhost:8080
+     * @param poolMemory maximum memory of the models kept between jobs (in megabytes)
+     * @return false if the service could not be started
+     */
+    public static boolean serve(String address, int nSlots, String outputPath, long poolMemory){
+        int sep = address.lastIndexOf(':');
+        try {
+            String host = sep >= 0 ? address.substring(0, sep) : "localhost";
+            int port = Integer.parseInt(sep >= 0 ? address.substring(sep + 1) : address);
+            SolveService service = new SolveService(new InetSocketAddress(host, port), nSlots, outputPath, poolMemory * 1024 * 1024);
+            Runtime.getRuntime().addShutdownHook(new Thread(service::stop));
+            service.start();
+            return true;
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Error: unable to start the solve service on " + address);
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/");
+            String method = exchange.getRequestMethod();
+            if(path.length == 1){
+                if(method.equals("POST")) submit(exchange);
+                else if(method.equals("GET")) respond(exchange, 200, jobs.values().stream().map(SolveJob::getState).sorted(Comparator.comparingInt(s -> Integer.parseInt(s.id()))).toList());
+                else respondError(exchange, 405, "Method " + method + " not allowed");
+                return;
+            }
+            SolveJob job = jobs.get(path[1]);
+            if(job == null){
+                respondError(exchange, 404, "No job " + path[1]);
+                return;
+            }
+            String resource = path.length > 2 ? path[2] : "";
+            switch (method + " " + resource) {
+                case "GET " -> respond(exchange, 200, job.getState());
+                case "DELETE " -> {
+                    job.cancel();
+                    slots.purge();
+                    respond(exchange, 200, job.getState());
+                }
+                case "GET events" -> streamEvents(exchange, job);
+                case "GET solution" -> {
+                    Solution sol = job.getSolution();
+                    if(sol == null) respondError(exchange, 404, "No solution found yet for job " + job.getId());
+                    else respond(exchange, 200, sol);
+                }
+                default -> respondError(exchange, 404, "Unknown request " + method + " " + exchange.getRequestURI().getPath());
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            respondError(exchange, 500, String.valueOf(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    //Reads the submitted instance and queues its job.
+    private void submit(HttpExchange exchange) throws IOException {
+        Map<String, String> options = parseQuery(exchange.getRequestURI().getRawQuery());
+        String model = options.getOrDefault("model", "CPOOptInterModel");
+        String search = options.getOrDefault("search", "Auto");
+        if(!Launcher.MODELS.contains(model)){
+            respondError(exchange, 400, "Model " + model + " is not recognized");
+            return;
+        }
+        Instance instance = JsonReader.readInstance(exchange.getRequestBody());
+        if(instance.id().equals("error")){
+            respondError(exchange, 400, "Unable to read instance");
+            return;
+        }
+        if(!instance.version().equals("0.4")){
+            respondError(exchange, 400, "Incompatible instance format! Instance version is " + instance.version() + ", must be 0.4");
+            return;
+        }
+
+        String id = String.valueOf(nextId.incrementAndGet());
+        SolveJob job = new SolveJob(id, instance, model, search, options, outputPath + id + "/" + search + "/", pool);
+        try {
+            job.setFuture(slots.submit(job));
+        } catch (RejectedExecutionException e) {
+            respondError(exchange, 503, "Queue is full");
+            return;
+        }
+        jobs.put(id, job);
+        evictFinishedJobs();
+        System.out.println("Job " + id + ": " + model + " " + search + " on instance " + instance.name());
+        respond(exchange, 202, job.getState());
+    }
+
+    //Highest id of the jobs whose results are in the output path, so that the jobs of a new run do not overwrite them.
+    private static int lastJobId(String outputPath){
+        int last = 0;
+        File[] dirs = new File(outputPath).listFiles(File::isDirectory);
+        if(dirs == null) return last;
+        for(File dir : dirs){
+            try {
+                last = Math.max(last, Integer.parseInt(dir.getName()));
+            } catch (NumberFormatException e) {
+                //Not the folder of a job.
+            }
+        }
+        return last;
+    }
+
+    //Forgets the oldest finished jobs beyond the number of finished jobs kept.
+    private void evictFinishedJobs(){
+        List<SolveJob> finished = new ArrayList<>();
+        for(SolveJob job : jobs.values()) if(job.isFinished()) finished.add(job);
+        if(finished.size() <= FINISHED_JOBS_KEPT) return;
+        finished.sort(Comparator.comparingInt(job -> Integer.parseInt(job.getId())));
+        for(SolveJob job : finished.subList(0, finished.size() - FINISHED_JOBS_KEPT)) jobs.remove(job.getId());
+    }
+
+    //Writes the events of a job as they come, one json object per line, until the job ends or the client leaves.
+    private static void streamEvents(HttpExchange exchange, SolveJob job) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        int read = 0;
+        try {
+            List<String> events = job.nextEvents(read);
+            while(!events.isEmpty()){
+                for(String event : events) out.write((event + "\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                read += events.size();
+                events = job.nextEvents(read);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        out.close();
+    }
+
+    private static Map<String, String> parseQuery(String query){
+        Map<String, String> params = new HashMap<>();
+        if(query == null || query.isEmpty()) return params;
+        for(String param : query.split("&")){
+            int sep = param.indexOf('=');
+            String key = URLDecoder.decode(sep >= 0 ? param.substring(0, sep) : param, StandardCharsets.UTF_8);
+            String value = sep >= 0 ? URLDecoder.decode(param.substring(sep + 1), StandardCharsets.UTF_8) : "";
+            params.put(key, value);
+        }
+        return params;
+    }
+
+    private static void respond(HttpExchange exchange, int code, Object body) throws IOException {
+        byte[] bytes = JsonWriter.objectToCompactString(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try(OutputStream out = exchange.getResponseBody()){
+            out.write(bytes);
+        }
+    }
+
+    private static void respondError(HttpExchange exchange, int code, String message) throws IOException {
+        respond(exchange, code, Map.of("error", message));
+    }
+}
@@ -0,0 +1,162 @@
+package org.adsp.tools;
+
+import org.adsp.datamodel.CompiledInstance;
+
+import java.util.Arrays;
+
+/**
+ * Critical path analysis of the precedence graph of an instance, ignoring resources, capacities and balance.
+ * Operations are processed iteratively in topological order, so that the analysis runs in linear time in the number of
+ * operations and precedences. Earliest starts are computed from time 0 and latest starts with respect to a horizon,
+ * which defaults to the length of the critical path.
+ * <p>
+ * A cyclic precedence graph has no schedule: the analysis then fails with an {@link IllegalArgumentException} that
+ * reports one of the cycles.
+ */
+public class CriticalPath {
+    private final int[] order; //Operations in topological order.
+    private final int[] est;
+    private final int[] lst;
+    private final int[] durations;
+    private final int length;
+    private final int horizon;
+
+    /**
+     * analyses the precedence graph with the length of the critical path as horizon
+     */
+    public CriticalPath(CompiledInstance instance) {
+        this(instance, -1);
+    }
+
+    /**
+     * analyses the precedence graph
+     * @param horizon time by which all the operations must end, the length of the critical path is used if negative
+     */
+    public CriticalPath(CompiledInstance instance, int horizon) {
+        int n = instance.nOperations();
+        durations = new int[n];
+        for(int i = 0; i < n; i++) durations[i] = instance.duration(i);
+
+        //Forward pass (Kahn's algorithm), the order array is used as queue:
+        order = new int[n];
+        est = new int[n];
+        int[] inDegrees = new int[n];
+        int tail = 0;
+        for(int i = 0; i < n; i++){
+            inDegrees[i] = instance.nPredecessors(i);
+            if(inDegrees[i] == 0) order[tail++] = i;
+        }
+        int maxEct = 0;
+        for(int head = 0; head < tail; head++){
+            int i = order[head];
+            int ect = est[i] + durations[i];
+            if(ect > maxEct) maxEct = ect;
+            for(int k = 0; k < instance.nSuccessors(i); k++){
+                int s = instance.successor(i, k);
+                if(ect > est[s]) est[s] = ect;
+                if(--inDegrees[s] == 0) order[tail++] = s;
+            }
+        }
+        if(tail < n) throw new IllegalArgumentException("Precedence cycle: " + describeCycle(instance, inDegrees));
+        length = maxEct;
+        this.horizon = horizon < 0 ? length : horizon;
+
+        //Backward pass in reverse topological order:
+        lst = new int[n];
+        for(int idx = n - 1; idx >= 0; idx--){
+            int i = order[idx];
+            int lct = this.horizon;
+            for(int k = 0; k < instance.nSuccessors(i); k++){
+                int s = instance.successor(i, k);
+                if(lst[s] < lct) lct = lst[s];
+            }
+            lst[i] = lct - durations[i];
+        }
+    }
+
+    //Walks back through the predecessors of an operation left on a cycle until an operation is met twice.
+    private static String describeCycle(CompiledInstance instance, int[] inDegrees) {
+        int n = inDegrees.length;
+        int[] visited = new int[n]; //Position in the walk + 1, 0 if not visited.
+        int[] walk = new int[n + 1];
+        int op = 0;
+        while(inDegrees[op] == 0) op++;
+        int steps = 0;
+        while(visited[op] == 0){
+            visited[op] = ++steps;
+            walk[steps - 1] = op;
+            //An operation left by the forward pass always has a predecessor left as well:
+            for(int k = 0; k < instance.nPredecessors(op); k++){
+                int p = instance.predecessor(op, k);
+                if(inDegrees[p] > 0){
+                    op = p;
+                    break;
+                }
+            }
+        }
+        StringBuilder cycle = new StringBuilder();
+        for(int s = steps - 1; s >= visited[op] - 1; s--) cycle.append(walk[s]).append(" -> ");
+        return cycle.append(walk[steps - 1]).toString();
+    }
+
+    /**
+     * @return the length of the critical path, a lower bound of the makespan
+     */
+    public int length() {
+        return length;
+    }
+
+    public int horizon() {
+        return horizon;
+    }
+
+    /**
+     * @return the operations in a topological order of the precedence graph
+     */
+    public int[] topologicalOrder() {
+        return order.clone();
+    }
+
+    public int earliestStart(int op) {
+        return est[op];
+    }
+
+    public int earliestEnd(int op) {
+        return est[op] + durations[op];
+    }
+
+    /**
+     * @return the latest start of an operation such that all the operations end by the horizon, negative if the
+     * horizon is shorter than the critical path
+     */
+    public int latestStart(int op) {
+        return lst[op];
+    }
+
+    public int latestEnd(int op) {
+        return lst[op] + durations[op];
+    }
+
+    /**
+     * @return the total slack of an operation: the delay of its start that does not delay the horizon
+     */
+    public int slack(int op) {
+        return lst[op] - est[op];
+    }
+
+    /**
+     * @return true if any delay of the operation delays the end of the critical path
+     */
+    public boolean isCritical(int op) {
+        return slack(op) == horizon - length;
+    }
+
+    /**
+     * @return the critical operations, by increasing earliest start
+     */
+    public int[] criticalOperations() {
+        return Arrays.stream(order).filter(this::isCritical).boxed()
+                .sorted((a, b) -> est[a] != est[b] ? Integer.compare(est[a], est[b]) : Integer.compare(a, b))
+                .mapToInt(Integer::intValue).toArray();
+    }
+}
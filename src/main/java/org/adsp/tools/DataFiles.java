@@ -0,0 +1,100 @@
+package org.adsp.tools;
+
+import org.adsp.datamodel.Instance;
+import org.adsp.datamodel.Log;
+import org.adsp.datamodel.Solution;
+import org.adsp.tools.binary.BinaryReader;
+import org.adsp.tools.binary.BinaryWriter;
+import org.adsp.tools.json.JsonReader;
+import org.adsp.tools.json.JsonWriter;
+
+import java.io.File;
+
+/**
+ * Reads instance, solution and log files in either json or binary format. The format is detected from the content of
+ * the file.
+ */
+public class DataFiles {
+
+    public static Instance readInstanceFile(String file){
+        return BinaryReader.isBinaryFile(file) ? BinaryReader.readInstanceFile(file) : JsonReader.readInstanceFile(file);
+    }
+
+    public static Solution readSolutionFile(String file){
+        return BinaryReader.isBinaryFile(file) ? BinaryReader.readSolutionFile(file) : JsonReader.readSolutionFile(file);
+    }
+
+    public static Log readLogFile(String file){
+        return BinaryReader.isBinaryFile(file) ? BinaryReader.readLogFile(file) : JsonReader.readLogFile(file);
+    }
+
+    /**
+     * @return the type of content of a file: instance, solution, log or checkpoint, null if unknown
+     */
+    public static String contentType(String file){
+        return BinaryReader.isBinaryFile(file) ? BinaryReader.contentType(file) : JsonReader.contentType(file);
+    }
+
+    /**
+     * Converts an instance, solution or log file from json to binary or from binary to json. If the file is a folder,
+     * all the json and binary files it contains are converted, keeping the structure of the folder.
+     * @param file file or folder to convert
+     * @param out path of the converted file, or folder in which it is written with the name of the converted file and
+     *            the extension of the other format
+     * @return true if all the files were converted
+     */
+    public static boolean convert(String file, String out){
+        File[] children = new File(file).listFiles();
+        if(children != null){
+            boolean converted = true;
+            for(File child : children){
+                String name = child.getName();
+                if(child.isDirectory()) converted &= convert(child.getPath(), out + "/" + name);
+                else if(name.endsWith(".json") || name.endsWith(BinaryWriter.EXTENSION)) converted &= convert(child.getPath(), out);
+            }
+            return converted;
+        }
+
+        boolean binary = BinaryReader.isBinaryFile(file);
+        String type = contentType(file);
+        if(type == null || type.equals("checkpoint")){
+            System.out.println("Error: unable to convert " + file + ", content type is " + type);
+            return false;
+        }
+
+        //Target file:
+        File target = new File(out);
+        boolean toBinary;
+        if(out.endsWith(".json")) toBinary = false;
+        else if(out.endsWith(BinaryWriter.EXTENSION)) toBinary = true;
+        else{
+            target.mkdirs();
+            toBinary = !binary;
+            String name = new File(file).getName();
+            if(name.contains(".")) name = name.substring(0, name.lastIndexOf('.'));
+            target = new File(target, name + (toBinary ? BinaryWriter.EXTENSION : ".json"));
+        }
+        System.out.println("Converting " + type + " " + file + " to " + target);
+
+        switch (type) {
+            case "instance" -> {
+                Instance instance = binary ? BinaryReader.readInstanceFile(file) : JsonReader.readInstanceFile(file);
+                if(instance.id().equals("error")) return false;
+                return toBinary ? BinaryWriter.writeToFileAtomic(BinaryWriter.instanceToBytes(instance), target)
+                        : JsonWriter.writeToFileAtomic(instance, target, true);
+            }
+            case "solution" -> {
+                Solution solution = binary ? BinaryReader.readSolutionFile(file) : JsonReader.readSolutionFile(file);
+                if(solution.instance().id().equals("error")) return false;
+                return toBinary ? BinaryWriter.writeToFileAtomic(BinaryWriter.solutionToBytes(solution), target)
+                        : JsonWriter.writeToFileAtomic(solution, target, true);
+            }
+            default -> {
+                Log log = binary ? BinaryReader.readLogFile(file) : JsonReader.readLogFile(file);
+                if(log.instance().equals("error")) return false;
+                return toBinary ? BinaryWriter.writeToFileAtomic(BinaryWriter.logToBytes(log), target)
+                        : JsonWriter.writeToFileAtomic(log, target, true);
+            }
+        }
+    }
+}
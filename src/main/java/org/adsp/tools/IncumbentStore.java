@@ -0,0 +1,116 @@
+package org.adsp.tools;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.adsp.datamodel.Instance;
+import org.adsp.datamodel.InstanceRef;
+import org.adsp.datamodel.Solution;
+import org.adsp.tools.json.JsonStreamReader;
+import org.adsp.tools.json.JsonWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local store of the best solutions known for each instance, used to warm start the searches. Instances are identified
+ * by their content hash, and the store keeps for each model the best solution for each objective: the best makespan
+ * (ties broken by cost) and the best cost (ties broken by makespan). Solutions of the relaxed model are kept apart
+ * since they are not solutions of the full model.
+ * <p>
+ * The store is a folder with the following layout, in which solutions refer to the instance file:
+ * {@code <hash>/<instance id>.json} and {@code <hash>/<model>/<objective>.json}. Updates are serialized with a file
+ * lock so that several runs can share the same store, and with a lock per folder within the same JVM since file locks
+ * are held by the whole process.
+ */
+public class IncumbentStore {
+    public static final String MAKESPAN = "makespan";
+    public static final String COST = "cost";
+
+    private static final Map<String, ReentrantLock> LOCKS = new ConcurrentHashMap<>(); //In-process locks by canonical folder.
+
+    private final File root;
+
+    public IncumbentStore(String root) {
+        this.root = new File(root);
+    }
+
+    /**
+     * @return the objective optimized first by a search: cost for the cost and inverted lexicographical searches,
+     * makespan otherwise
+     */
+    public static String objective(String search){
+        return search.startsWith("CST") || search.startsWith("ILEX") ? COST : MAKESPAN;
+    }
+
+    /**
+     * @return the best solution known for an instance, model and objective, null if none
+     */
+    public Solution best(Instance instance, String model, String objective){
+        File file = solutionFile(instance.contentHash(), model, objective);
+        if(!file.isFile()) return null;
+        InstanceResolver.getDefault().register(instance); //The instance of the solution is resolved without reading it.
+        Solution sol = DataFiles.readSolutionFile(file.getPath());
+        return sol.instance().id().equals("error") ? null : sol;
+    }
+
+    /**
+     * Keeps a solution found by a model if it is better than the best known solution for one of the objectives.
+     * @return true if the solution has been kept
+     */
+    public boolean update(String model, Solution sol){
+        if(sol == null || sol.activities().length == 0) return false;
+        Instance instance = sol.instance();
+        String hash = instance.contentHash();
+        File dir = new File(root, hash);
+        dir.mkdirs();
+        ReentrantLock lock;
+        try {
+            lock = LOCKS.computeIfAbsent(dir.getCanonicalPath(), path -> new ReentrantLock());
+        } catch (IOException e) {
+            System.out.println("Error: unable to update the incumbent store!");
+            e.printStackTrace();
+            return false;
+        }
+        lock.lock();
+        try(FileChannel channel = FileChannel.open(new File(dir, "lock").toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)){
+            channel.lock(); //Released when the channel is closed.
+            File instanceFile = new File(dir, instance.id() + ".json");
+            if(!instanceFile.isFile()) JsonWriter.writeToFileAtomic(instance, instanceFile, true);
+
+            boolean updated = false;
+            for(String objective : new String[]{MAKESPAN, COST}){
+                File file = solutionFile(hash, model, objective);
+                if(!file.isFile() || isBetter(sol, file, objective.equals(MAKESPAN))){
+                    JsonWriter.writeSolutionToFile(sol, file.getPath(), new InstanceRef(instance.id(), hash));
+                    System.out.println("New best " + objective + " known for instance " + instance.name() + " with model " + model);
+                    updated = true;
+                }
+            }
+            return updated;
+        } catch (IOException e) {
+            System.out.println("Error: unable to update the incumbent store!");
+            e.printStackTrace();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Compares a solution with the one of a file lexicographically, on the given objective first.
+    private static boolean isBetter(Solution sol, File file, boolean makespanFirst) throws IOException {
+        Map<String, JsonNode> best = JsonStreamReader.readFields(file.getPath(), "makespan", "cost");
+        if(best.size() < 2) return true;
+        int makespan = best.get("makespan").asInt();
+        int cost = best.get("cost").asInt();
+        if(makespanFirst) return sol.makespan() < makespan || (sol.makespan() == makespan && sol.cost() < cost);
+        return sol.cost() < cost || (sol.cost() == cost && sol.makespan() < makespan);
+    }
+
+    private File solutionFile(String hash, String model, String objective){
+        return new File(root, hash + "/" + model + "/" + objective + ".json");
+    }
+}
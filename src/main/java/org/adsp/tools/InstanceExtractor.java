@@ -0,0 +1,137 @@
+package org.adsp.tools;
+
+import org.adsp.datamodel.*;
+
+import java.util.*;
+
+/**
+ * Extracts sub-instances from an instance. The set of operations extracted is closed under precedences: all the
+ * predecessors of an extracted operation are extracted as well. Operations, locations and resources of the
+ * sub-instance are re-indexed densely, and the locations and resources that are not used by any of the extracted
+ * operations are dropped.
+ */
+public class InstanceExtractor {
+    private final Instance instance;
+
+    public InstanceExtractor(Instance instance) {
+        this.instance = instance;
+    }
+
+    /**
+     * extracts a sub-instance of a given size. Operations are taken following a random topological order of the
+     * precedence graph, so that the extracted set is closed under precedences. For a given seed, sub-instances are
+     * nested: the sub-instance of a given size contains all the sub-instances of smaller sizes.
+     * @param size number of operations to extract
+     * @param seed seed of the random topological order
+     * @return the sub-instance
+     */
+    public Instance extract(int size, long seed) {
+        int n = instance.operations().length;
+        Random random = new Random(seed);
+        double[] priorities = new double[n];
+        for(int i = 0; i < n; i++) priorities[i] = random.nextDouble();
+
+        int[] inDegrees = new int[n];
+        ArrayList<ArrayList<Integer>> successors = new ArrayList<>();
+        for(int i = 0; i < n; i++) successors.add(new ArrayList<>());
+        for(Operation op : instance.operations()){
+            inDegrees[op.id()] = op.precedences().length;
+            for(int p : op.precedences()) successors.get(p).add(op.id());
+        }
+
+        //Available operations (all predecessors selected) are taken by order of priority:
+        PriorityQueue<Integer> available = new PriorityQueue<>(Comparator.comparingDouble(i -> priorities[i]));
+        for(int i = 0; i < n; i++) if(inDegrees[i] == 0) available.add(i);
+        boolean[] selected = new boolean[n];
+        int nSelected = 0;
+        while(nSelected < size && !available.isEmpty()){
+            int i = available.poll();
+            selected[i] = true;
+            nSelected++;
+            for(int s : successors.get(i)) if(--inDegrees[s] == 0) available.add(s);
+        }
+        return build(selected, "-" + seed);
+    }
+
+    /**
+     * extracts the sub-instance containing the operations with the given cards and their predecessors
+     * @param cards cards of the operations to extract
+     * @return the sub-instance
+     */
+    public Instance extract(Collection<String> cards) {
+        Set<String> remaining = new HashSet<>(cards);
+        boolean[] selected = new boolean[instance.operations().length];
+        for(Operation op : instance.operations()){
+            if(remaining.remove(op.card())) close(op.id(), selected);
+        }
+        if(!remaining.isEmpty()) System.out.println("Warning: cards " + remaining + " not found in instance " + instance.name());
+        return build(selected, "-Cards");
+    }
+
+    //Selects an operation and its predecessors.
+    private void close(int op, boolean[] selected) {
+        ArrayDeque<Integer> stack = new ArrayDeque<>();
+        stack.push(op);
+        while(!stack.isEmpty()){
+            int i = stack.pop();
+            if(selected[i]) continue;
+            selected[i] = true;
+            for(int p : instance.operations()[i].precedences()) if(!selected[p]) stack.push(p);
+        }
+    }
+
+    //Builds the sub-instance of the selected operations, re-indexing operations, locations and resources.
+    private Instance build(boolean[] selected, String suffix) {
+        int[] opIds = new int[selected.length];
+        int[] locIds = new int[instance.locations().length];
+        Arrays.fill(opIds, -1);
+        Arrays.fill(locIds, -1);
+        Set<String> categories = new HashSet<>();
+        int nOps = 0;
+        for(Operation op : instance.operations()) if(selected[op.id()]){
+            opIds[op.id()] = nOps++;
+            locIds[op.location()] = 0;
+            for(Requirement req : op.resources()) categories.addAll(Arrays.asList(req.category()));
+        }
+
+        ArrayList<Location> locations = new ArrayList<>();
+        for(Location loc : instance.locations()) if(locIds[loc.id()] >= 0){
+            locIds[loc.id()] = locations.size();
+            locations.add(new Location(locations.size(), loc.name(), loc.zone(), loc.capacity()));
+        }
+
+        ArrayList<Resource> resources = new ArrayList<>();
+        for(Resource res : instance.resources()) if(categories.contains(res.category())){
+            resources.add(new Resource(resources.size(), res.name(), res.category(), res.unavailable(), res.cost()));
+        }
+
+        Operation[] operations = new Operation[nOps];
+        for(Operation op : instance.operations()) if(selected[op.id()]){
+            int[] precedences = Arrays.stream(op.precedences()).map(p -> opIds[p]).toArray();
+            operations[opIds[op.id()]] = new Operation(
+                    opIds[op.id()],
+                    op.name(),
+                    op.card(),
+                    op.duration(),
+                    locIds[op.location()],
+                    op.occupancy(),
+                    op.mass(),
+                    op.resources(),
+                    precedences
+            );
+        }
+
+        String name = instance.name() + "-Sub-" + nOps + suffix;
+        return new Instance(
+                name,
+                name,
+                instance.version(),
+                instance.maxTime(),
+                instance.balanceAF(),
+                instance.balanceLR(),
+                resources.toArray(new Resource[0]),
+                locations.toArray(new Location[0]),
+                operations
+        );
+    }
+}
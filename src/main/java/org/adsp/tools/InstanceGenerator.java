@@ -0,0 +1,160 @@
+package org.adsp.tools;
+
+import org.adsp.datamodel.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates synthetic instances of arbitrary size that reproduce the statistics of a base instance.
+ * The generation is deterministic for a given base instance, size and seed.
+ * <p>
+ * Operations are copies of the operations of the base instance, each base operation being copied about
+ * size / (number of base operations) times. The precedences of a copy link it to random copies of the predecessors
+ * of its base operation, so that the depth of the precedence graph and the fan-in of the operations are kept while
+ * the width of the graph grows with the size. Copies keep the duration of their base operation, which preserves the
+ * length of the critical paths. Their occupancy, mass and requirements are taken from a random base operation of the
+ * same location, which keeps their joint distribution per location and zone.
+ * <p>
+ * As the amount of work grows with the size, the numbers of locations and resources as well as the time horizon and
+ * balance limits are scaled by the square root of the size ratio. New locations and resources are copies of random
+ * base ones. Copied resources keep the category, cost and unavailability periods of their base resource, the start of
+ * the periods being rescaled to the new horizon.
+ */
+public class InstanceGenerator {
+    private final Instance base;
+    private final int[] levels; //Depth of each base operation in the precedence graph.
+    private final int[][] opsByLocation; //Base operations of each base location.
+
+    public InstanceGenerator(Instance base) {
+        this.base = base;
+        levels = computeLevels(base);
+        int nLocations = base.locations().length;
+        ArrayList<ArrayList<Integer>> byLoc = new ArrayList<>();
+        for(int l = 0; l < nLocations; l++) byLoc.add(new ArrayList<>());
+        for(Operation op : base.operations()) byLoc.get(op.location()).add(op.id());
+        opsByLocation = new int[nLocations][];
+        for(int l = 0; l < nLocations; l++) opsByLocation[l] = byLoc.get(l).stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * generates a new instance
+     * @param size number of operations of the generated instance
+     * @param seed seed of the random generator
+     * @return the generated instance
+     */
+    public Instance generate(int size, long seed) {
+        Random random = new Random(seed);
+        int nBase = base.operations().length;
+        double ratio = (double) size / nBase;
+        double scale = Math.max(1, Math.sqrt(ratio)); //Scaling factor of the parallelism and horizon.
+
+        //Locations: each base location is copied locCopies times.
+        int locCopies = (int) Math.round(scale);
+        Location[] locations = new Location[base.locations().length * locCopies];
+        for(int c = 0; c < locCopies; c++){
+            for(Location loc : base.locations()){
+                int id = c * base.locations().length + loc.id();
+                locations[id] = new Location(id, "Location " + id, loc.zone(), loc.capacity());
+            }
+        }
+
+        //Resources: all base resources, then random copies.
+        int maxTime = (int) Math.round(base.maxTime() * scale);
+        int nResources = (int) Math.round(base.resources().length * scale);
+        Resource[] resources = new Resource[nResources];
+        for(int r = 0; r < nResources; r++){
+            Resource res = r < base.resources().length ? base.resources()[r] : base.resources()[random.nextInt(base.resources().length)];
+            resources[r] = new Resource(r, "Resource " + r, res.category(), scaleCalendar(res.unavailable(), scale, maxTime), res.cost());
+        }
+
+        //Operations: base operation of each copy, sorted by level so that predecessors are created first.
+        int[] origins = new int[size];
+        for(int i = 0; i < size; i++) origins[i] = i % nBase;
+        for(int i = (size / nBase) * nBase; i < size; i++) origins[i] = random.nextInt(nBase); //Remainder sampled.
+        origins = Arrays.stream(origins).boxed()
+                .sorted((a, b) -> levels[a] != levels[b] ? Integer.compare(levels[a], levels[b]) : Integer.compare(a, b))
+                .mapToInt(Integer::intValue).toArray();
+
+        //Copies of each base operation:
+        ArrayList<ArrayList<Integer>> copies = new ArrayList<>();
+        for(int b = 0; b < nBase; b++) copies.add(new ArrayList<>());
+        for(int i = 0; i < size; i++) copies.get(origins[i]).add(i);
+
+        Operation[] operations = new Operation[size];
+        for(int i = 0; i < size; i++){
+            Operation structure = base.operations()[origins[i]];
+            int[] sameLocation = opsByLocation[structure.location()];
+            Operation attributes = base.operations()[sameLocation[random.nextInt(sameLocation.length)]];
+            int location = random.nextInt(locCopies) * base.locations().length + structure.location();
+
+            //Each predecessor of the base operation is mapped to one of its copies, if any:
+            int[] precedences = Arrays.stream(structure.precedences())
+                    .filter(p -> !copies.get(p).isEmpty())
+                    .map(p -> copies.get(p).get(random.nextInt(copies.get(p).size())))
+                    .distinct().sorted().toArray();
+
+            operations[i] = new Operation(
+                    i,
+                    "Operation " + i,
+                    String.valueOf(i),
+                    structure.duration(),
+                    location,
+                    attributes.occupancy(),
+                    attributes.mass(),
+                    attributes.resources(),
+                    precedences
+            );
+        }
+
+        String name = base.name() + "-Gen-" + size + "-" + seed;
+        return new Instance(
+                name,
+                name,
+                base.version(),
+                maxTime,
+                (int) Math.round(base.balanceAF() * scale),
+                (int) Math.round(base.balanceLR() * scale),
+                resources,
+                locations,
+                operations
+        );
+    }
+
+    //Rescales the starts of unavailability periods to the new horizon, keeping their durations.
+    private static TimeWindow[] scaleCalendar(TimeWindow[] windows, double scale, int maxTime) {
+        TimeWindow[] scaled = new TimeWindow[windows.length];
+        for(int w = 0; w < windows.length; w++){
+            int duration = Math.min(windows[w].duration(), maxTime);
+            int start = Math.min((int) Math.round(windows[w].start() * scale / 8) * 8, maxTime - duration);
+            scaled[w] = new TimeWindow(start, start + duration);
+        }
+        return scaled;
+    }
+
+    //Depth of each operation in the precedence graph, sources having a depth of 0.
+    private static int[] computeLevels(Instance instance) {
+        int n = instance.operations().length;
+        int[] levels = new int[n];
+        int[] inDegrees = new int[n];
+        ArrayList<ArrayList<Integer>> successors = new ArrayList<>();
+        for(int i = 0; i < n; i++) successors.add(new ArrayList<>());
+        for(Operation op : instance.operations()){
+            inDegrees[op.id()] = op.precedences().length;
+            for(int p : op.precedences()) successors.get(p).add(op.id());
+        }
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        for(int i = 0; i < n; i++) if(inDegrees[i] == 0) queue[tail++] = i;
+        while(head < tail){
+            int i = queue[head++];
+            for(int s : successors.get(i)){
+                levels[s] = Math.max(levels[s], levels[i] + 1);
+                if(--inDegrees[s] == 0) queue[tail++] = s;
+            }
+        }
+        if(tail < n) throw new IllegalArgumentException("Precedence graph of instance " + instance.name() + " contains a cycle");
+        return levels;
+    }
+}
@@ -0,0 +1,89 @@
+package org.adsp.tools;
+
+import org.adsp.datamodel.Instance;
+import org.adsp.datamodel.InstanceRef;
+import org.adsp.tools.binary.BinaryWriter;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Resolves references to instances. Instance files are looked up by id in a list of folders and their sub-folders,
+ * and only accepted if their content hash matches the reference. Resolved instances are cached by hash, so that each
+ * instance is only read once.
+ * <p>
+ * The folders searched by the default resolver are given by the {@code adsp.instances} system property (a list of
+ * paths separated by the path separator of the system) and default to {@code data/json}.
+ */
+public class InstanceResolver {
+    private static final InstanceResolver defaultResolver = new InstanceResolver(
+            List.of(System.getProperty("adsp.instances", "data/json").split(File.pathSeparator))
+    );
+
+    private final List<File> searchPaths = new CopyOnWriteArrayList<>();
+    private final Map<String, Instance> cache = new ConcurrentHashMap<>(); //Instances by content hash.
+
+    public InstanceResolver(List<String> searchPaths) {
+        for(String path : searchPaths) addSearchPath(path);
+    }
+
+    public static InstanceResolver getDefault() {
+        return defaultResolver;
+    }
+
+    public void addSearchPath(String path) {
+        searchPaths.add(new File(path));
+    }
+
+    /**
+     * adds an instance to the cache
+     */
+    public void register(Instance instance) {
+        cache.putIfAbsent(instance.contentHash(), instance);
+    }
+
+    /**
+     * resolves a reference to an instance
+     * @param ref reference to resolve
+     * @param extraPaths folders searched before the search paths of the resolver
+     * @return the instance, null if no instance file matches the reference
+     */
+    public Instance resolve(InstanceRef ref, String... extraPaths) {
+        Instance instance = cache.get(ref.hash());
+        if(instance != null) return instance;
+
+        List<File> paths = new ArrayList<>();
+        for(String path : extraPaths) paths.add(new File(path));
+        paths.addAll(searchPaths);
+        for(File path : paths){
+            instance = search(ref, path);
+            if(instance != null) return instance;
+        }
+        return null;
+    }
+
+    //Searches an instance file matching the reference in a folder and its sub-folders.
+    private Instance search(InstanceRef ref, File dir) {
+        for(String ext : new String[]{".json", BinaryWriter.EXTENSION}){
+            File candidate = new File(dir, ref.id() + ext);
+            if(candidate.isFile() && "instance".equals(DataFiles.contentType(candidate.getPath()))){
+                Instance instance = DataFiles.readInstanceFile(candidate.getPath());
+                if(instance.id().equals("error")) continue;
+                String hash = instance.contentHash();
+                cache.putIfAbsent(hash, instance);
+                if(hash.equals(ref.hash())) return instance;
+                System.out.println("Warning: content of " + candidate + " does not match the hash of the reference");
+            }
+        }
+        File[] children = dir.listFiles(File::isDirectory);
+        if(children != null) for(File child : children){
+            Instance instance = search(ref, child);
+            if(instance != null) return instance;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,244 @@
+package org.adsp.tools;
+
+import org.adsp.datamodel.Instance;
+import org.adsp.datamodel.Log;
+import org.adsp.datamodel.LogEntry;
+import org.adsp.datamodel.LogIndex;
+import org.adsp.datamodel.Solution;
+import org.adsp.tools.binary.BinaryReader;
+import org.adsp.tools.binary.BinaryWriter;
+import org.adsp.tools.json.JsonStreamReader;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aggregates the results of runs into the stats csv format. Each results folder (for instance
+ * results/LexicographicalSearch/Auto) contains a logs and a solutions folder with one file per instance. The logs and
+ * solutions of all the folders are read in parallel, and the instances are only read once, from the first solution
+ * file found for each of them.
+ * <p>
+ * For each folder, the stats give the makespan and cost of the first and best solutions with their gap and time,
+ * followed by the log of each instance. When several folders are given, the logs are also given on a common time
+ * line for each instance (synced instances), along with a side by side comparison of the best solutions.
+ */
+public class ResultsStats {
+    /**
+     * Results of a run on an instance.
+     */
+    public record Run(String instance, int nOps, int makespanUB, int costUB, Log log) {}
+
+    private final Map<String, Optional<Instance>> instances = new ConcurrentHashMap<>(); //Instances by name.
+    private final Map<String, List<Run>> runs = new LinkedHashMap<>(); //Runs by results folder, sorted by instance.
+    private final Map<String, double[]> syncedTimes = new HashMap<>(); //Times of the entries of all the folders by instance.
+
+    /**
+     * reads the runs of results folders
+     * @param dirs results folders, each containing a logs and a solutions folder
+     */
+    public ResultsStats(List<String> dirs) {
+        List<String[]> files = new ArrayList<>(); //Results folder and log file.
+        for(String dir : dirs){
+            File[] logs = new File(dir, "logs").listFiles((d, name) -> name.endsWith(".json") || name.endsWith(BinaryWriter.EXTENSION));
+            if(logs == null){
+                System.out.println("Warning: no logs folder in " + dir);
+                continue;
+            }
+            for(File log : logs) files.add(new String[]{dir, log.getPath()});
+        }
+        List<Map.Entry<String, Run>> loaded = files.parallelStream()
+                .map(f -> Map.entry(f[0], loadRun(f[0], f[1])))
+                .filter(e -> e.getValue() != null)
+                .toList();
+        for(String dir : dirs){
+            runs.put(dir, loaded.stream()
+                    .filter(e -> e.getKey().equals(dir))
+                    .map(Map.Entry::getValue)
+                    .sorted(Comparator.comparing(Run::instance))
+                    .toList());
+        }
+    }
+
+    public Map<String, List<Run>> runs() {
+        return runs;
+    }
+
+    private Run loadRun(String dir, String logFile) {
+        Log log = DataFiles.readLogFile(logFile);
+        if(log.instance().equals("error")) return null;
+        log.index(); //Built here to be built in parallel.
+        String name = new File(logFile).getName();
+        File solFile = new File(new File(dir, "solutions"), name);
+        Optional<Instance> instance = instances.computeIfAbsent(log.instance(), n -> Optional.ofNullable(readInstance(solFile)));
+        if(instance.isEmpty()) return new Run(log.instance(), 0, 0, 0, log);
+        Instance inst = instance.get();
+        return new Run(log.instance(), inst.nOps(), inst.makespanUB(), inst.costUB(), log);
+    }
+
+    //Reads the instance of a solution file, only binding the instance of json files that embed it.
+    private static Instance readInstance(File solFile) {
+        if(!solFile.isFile()){
+            System.out.println("Warning: no solution file " + solFile);
+            return null;
+        }
+        try{
+            if(!BinaryReader.isBinaryFile(solFile.getPath())){
+                Instance instance = JsonStreamReader.readField(solFile.getPath(), "instance", Instance.class);
+                if(instance != null) return instance;
+            }
+        } catch (IOException e) {
+            System.out.println("Error: unable to read " + solFile);
+            e.printStackTrace();
+            return null;
+        }
+        Solution sol = DataFiles.readSolutionFile(solFile.getPath());
+        return sol.instance().id().equals("error") ? null : sol.instance();
+    }
+
+    /**
+     * writes the stats to a file, or to the standard output if the file is null
+     */
+    public void writeToFile(String file) {
+        if(file == null){
+            PrintWriter writer = new PrintWriter(new OutputStreamWriter(System.out));
+            write(writer);
+            writer.flush();
+            return;
+        }
+        try(PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file)))){
+            write(writer);
+        } catch (IOException e) {
+            System.out.println("Error: unable to write " + file);
+            e.printStackTrace();
+        }
+    }
+
+    public void write(PrintWriter out) {
+        for(Map.Entry<String, List<Run>> entry : runs.entrySet()) writeStats(out, entry.getKey(), entry.getValue());
+        if(runs.size() > 1){
+            for(String dir : runs.keySet()) writeSynced(out, dir);
+            writeComparison(out);
+        }
+    }
+
+    //Time from which an objective is optimized: the start of the second search for the secondary objective of
+    //lexicographical searches, 0 otherwise. The cost is optimized first by the inverse lexicographical searches, whose
+    //results folders are named after the search (ILEX-AUTO, ILEX-DF, ILEX-FD).
+    private static double objectiveStart(String dir, Log log, boolean onMakespan) {
+        boolean secondary = new File(dir).getName().startsWith("ILEX") == onMakespan;
+        return secondary && log.isLex() ? log.secondSearchStart() : 0;
+    }
+
+    private static void writeStats(PrintWriter out, String dir, List<Run> runs) {
+        out.println("Stats for " + dir + ":");
+        writeObjective(out, dir, runs, true);
+        writeObjective(out, dir, runs, false);
+        out.println("Instances:");
+        for(Run run : runs){
+            double[] times = Arrays.stream(run.log().log()).mapToDouble(LogEntry::time).toArray();
+            double[] makespans = Arrays.stream(run.log().log()).mapToDouble(LogEntry::makespan).toArray();
+            double[] costs = Arrays.stream(run.log().log()).mapToDouble(LogEntry::cost).toArray();
+            writeInstance(out, run.instance(), times, makespans, costs);
+        }
+    }
+
+    private static void writeObjective(PrintWriter out, String dir, List<Run> runs, boolean onMakespan) {
+        String name = onMakespan ? "Makespan" : "Cost";
+        out.println(name + ":");
+        out.println("Instance,N ops," + name + " UB," + name + " 1st sol,Gap 1st sol,Time to 1st sol," + name + " best,Gap best,time to best," + name + " LB,Optimum");
+        for(Run run : runs){
+            LogIndex index = run.log().index();
+            double start = objectiveStart(dir, run.log(), onMakespan);
+            int bound = onMakespan ? run.log().makespanBound() : run.log().costBound();
+            int first = index.firstFrom(onMakespan, start);
+            int best = index.bestFrom(onMakespan, start);
+            out.println(String.join(",",
+                    run.instance(),
+                    String.valueOf(run.nOps()),
+                    String.valueOf(onMakespan ? run.makespanUB() : run.costUB()),
+                    String.valueOf(first),
+                    String.valueOf(Log.gap(first, bound)),
+                    String.valueOf(index.firstTimeFrom(start)),
+                    String.valueOf(best),
+                    String.valueOf(Log.gap(best, bound)),
+                    String.valueOf(index.timeToBestFrom(onMakespan, start)),
+                    String.valueOf(bound),
+                    String.valueOf(best == bound)
+            ));
+        }
+    }
+
+    private static void writeInstance(PrintWriter out, String instance, double[] times, double[] makespans, double[] costs) {
+        out.println(instance);
+        out.println(row("Time", times));
+        out.println(row("Makespan", makespans));
+        out.println(row("Cost", costs));
+        out.println();
+    }
+
+    private static String row(String name, double[] values) {
+        StringBuilder row = new StringBuilder(name);
+        for(double v : values) row.append(',').append(v);
+        return row.toString();
+    }
+
+    //Logs of a folder on the time line of all the folders: the value at each time is the one of the last entry at or
+    //before this time, or of the first entry before the first solution.
+    private void writeSynced(PrintWriter out, String dir) {
+        out.println("Synced instances of " + dir + ":");
+        for(Run run : runs.get(dir)){
+            double[] times = syncedTimes.computeIfAbsent(run.instance(), instance -> runs.values().stream()
+                    .flatMap(List::stream)
+                    .filter(r -> r.instance().equals(instance))
+                    .flatMapToDouble(r -> Arrays.stream(r.log().log()).mapToDouble(LogEntry::time))
+                    .distinct().sorted().toArray());
+            LogEntry[] entries = run.log().log();
+            double[] makespans = new double[times.length];
+            double[] costs = new double[times.length];
+            int k = 0;
+            for(int t = 0; t < times.length; t++){
+                while(k + 1 < entries.length && entries[k + 1].time() <= times[t]) k++;
+                makespans[t] = entries.length > 0 ? entries[k].makespan() : Double.NaN;
+                costs[t] = entries.length > 0 ? entries[k].cost() : Double.NaN;
+            }
+            writeInstance(out, run.instance(), times, makespans, costs);
+        }
+    }
+
+    //Best solutions of each folder side by side.
+    private void writeComparison(PrintWriter out) {
+        out.println("Comparison:");
+        StringBuilder header = new StringBuilder("Instance,N ops,Makespan LB");
+        for(String dir : runs.keySet()) header.append(',').append(dir).append(" Makespan best,").append(dir).append(" time to best");
+        header.append(",Cost LB");
+        for(String dir : runs.keySet()) header.append(',').append(dir).append(" Cost best,").append(dir).append(" time to best");
+        out.println(header);
+
+        Map<String, Map<String, Run>> byInstance = new TreeMap<>();
+        for(Map.Entry<String, List<Run>> entry : runs.entrySet())
+            for(Run run : entry.getValue()) byInstance.computeIfAbsent(run.instance(), i -> new HashMap<>()).put(entry.getKey(), run);
+        for(Map.Entry<String, Map<String, Run>> entry : byInstance.entrySet()){
+            Run any = entry.getValue().values().iterator().next();
+            StringBuilder row = new StringBuilder(entry.getKey()).append(',').append(any.nOps()).append(',').append(any.log().makespanBound());
+            for(String dir : runs.keySet()){
+                Run run = entry.getValue().get(dir);
+                if(run == null) row.append(",,");
+                else appendBest(row, dir, run, true);
+            }
+            row.append(',').append(any.log().costBound());
+            for(String dir : runs.keySet()){
+                Run run = entry.getValue().get(dir);
+                if(run == null) row.append(",,");
+                else appendBest(row, dir, run, false);
+            }
+            out.println(row);
+        }
+    }
+
+    private static void appendBest(StringBuilder row, String dir, Run run, boolean onMakespan) {
+        LogIndex index = run.log().index();
+        double start = objectiveStart(dir, run.log(), onMakespan);
+        row.append(',').append(index.bestFrom(onMakespan, start)).append(',').append(index.timeToBestFrom(onMakespan, start));
+    }
+}
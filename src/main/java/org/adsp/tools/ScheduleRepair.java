@@ -0,0 +1,279 @@
+package org.adsp.tools;
+
+import org.adsp.datamodel.*;
+
+import java.util.*;
+
+/**
+ * Repairs a solution of the relaxed model into a schedule of the full model. The relaxed model assigns the resources
+ * of an operation to a single merged requirement and ignores the capacities of the locations, the balance limits and
+ * the certifications of the other requirements.
+ * <p>
+ * Operations are scheduled again one by one, in the order of their start in the relaxed solution, at the earliest time
+ * after their predecessors at which the capacity of their location, the balance limits and the resources of each of
+ * their requirements allow it. The resources assigned by the relaxed solution to an operation are split among its
+ * requirements first, completed with the cheapest available compatible resources. Operations that cannot be placed are
+ * postponed until the other operations are placed. As a last resort, they are placed after the end of the operations
+ * placed so far, within the horizon, in which case the schedule may violate some constraints.
+ */
+public class ScheduleRepair {
+    private final Instance instance;
+    private final CompiledInstance compiled;
+    private final int horizon;
+    private final int[][] byCost; //Compatible resources of each requirement, cheapest first.
+
+    //Schedule in progress:
+    private int[] starts;
+    private int[][] resources; //Resource and requirement of each unit of each operation, -1 if none.
+    private int[][] occupancy; //Occupancy of each location over time.
+    private int[] diffAF; //Shifted mass differences over time, as in the model.
+    private int[] diffLR;
+    private boolean[][] busy; //Busy times of each resource.
+    private int latestEnd; //Latest end of the operations placed.
+    private List<Integer>[] preferred; //Resources assigned to each operation by the relaxed solution.
+    private int violations;
+
+    public ScheduleRepair(Instance instance) {
+        this.instance = instance;
+        compiled = instance.compiled();
+        horizon = instance.maxTime();
+        byCost = new int[compiled.nRequirements()][];
+        for(int req = 0; req < byCost.length; req++){
+            Integer[] compat = new Integer[compiled.nCompatible(req)];
+            for(int k = 0; k < compat.length; k++) compat[k] = compiled.compatible(req, k);
+            Arrays.sort(compat, Comparator.comparingInt(compiled::cost));
+            byCost[req] = Arrays.stream(compat).mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * @param relaxed solution of the relaxed model for the instance
+     * @return the repaired schedule
+     */
+    @SuppressWarnings("unchecked")
+    public Solution repair(Solution relaxed){
+        int n = compiled.nOperations();
+        int[] relaxedStarts = new int[n];
+        Arrays.fill(relaxedStarts, Integer.MAX_VALUE);
+        for(Activity act : relaxed.activities()) relaxedStarts[act.operation()] = act.start();
+        preferred = new List[n];
+        for(int i = 0; i < n; i++) preferred[i] = new ArrayList<>();
+        for(Assignment ass : relaxed.assignments()) preferred[ass.operation()].add(ass.resource());
+
+        starts = new int[n];
+        resources = new int[n][];
+        occupancy = new int[compiled.nLocations()][horizon];
+        diffAF = new int[horizon + 1];
+        diffLR = new int[horizon + 1];
+        Arrays.fill(diffAF, instance.balanceAF());
+        Arrays.fill(diffLR, instance.balanceLR());
+        busy = new boolean[compiled.nResources()][horizon];
+        latestEnd = 0;
+        violations = 0;
+
+        //Scheduling in the order of the relaxed solution, once the predecessors are placed:
+        int[] remaining = new int[n];
+        PriorityQueue<Integer> ready = new PriorityQueue<>(Comparator.comparingInt((Integer op) -> relaxedStarts[op]).thenComparingInt(op -> op));
+        for(int i = 0; i < n; i++){
+            remaining[i] = compiled.nPredecessors(i);
+            if(remaining[i] == 0) ready.add(i);
+        }
+        List<Integer> postponed = new ArrayList<>();
+        int placed = 0;
+        while(placed < n){
+            while(!ready.isEmpty()){
+                int op = ready.poll();
+                if(place(op, false)){
+                    placed++;
+                    release(op, remaining, ready);
+                } else postponed.add(op);
+            }
+            if(postponed.isEmpty()) break;
+
+            //Retrying the postponed operations, the first one is forced after the others if none can be placed:
+            boolean progress = false;
+            for(Iterator<Integer> it = postponed.iterator(); it.hasNext();){
+                int op = it.next();
+                if(place(op, false)){
+                    it.remove();
+                    placed++;
+                    release(op, remaining, ready);
+                    progress = true;
+                }
+            }
+            if(!progress){
+                int op = postponed.remove(0);
+                place(op, true);
+                violations++;
+                placed++;
+                release(op, remaining, ready);
+            }
+        }
+        return toSolution();
+    }
+
+    /**
+     * @return the number of operations of the last repaired schedule that violate some constraints
+     */
+    public int violations(){
+        return violations;
+    }
+
+    private void release(int op, int[] remaining, PriorityQueue<Integer> ready){
+        for(int k = 0; k < compiled.nSuccessors(op); k++){
+            int succ = compiled.successor(op, k);
+            if(--remaining[succ] == 0) ready.add(succ);
+        }
+    }
+
+    //Places an operation at its earliest feasible start. If forced, places it after the end of the operations placed so
+    //far, where the locations and resources are free, within the horizon and whatever the remaining conflicts.
+    private boolean place(int op, boolean force){
+        int duration = compiled.duration(op);
+        int est = 0;
+        for(int k = 0; k < compiled.nPredecessors(op); k++){
+            int pred = compiled.predecessor(op, k);
+            est = Math.max(est, starts[pred] + compiled.duration(pred));
+        }
+
+        //Balance profile impacted by the operation with the suffix bounds of the profile:
+        int mass = compiled.mass(op);
+        int[] balance = null;
+        int limit = 0;
+        switch (compiled.zone(op)) {
+            case CompiledInstance.FWD -> {balance = diffAF; limit = instance.balanceAF() * 2;}
+            case CompiledInstance.AFT -> {balance = diffAF; limit = instance.balanceAF() * 2; mass = -mass;}
+            case CompiledInstance.RH -> {balance = diffLR; limit = instance.balanceLR() * 2;}
+            case CompiledInstance.LH -> {balance = diffLR; limit = instance.balanceLR() * 2; mass = -mass;}
+            default -> {}
+        }
+        int[] suffixMin = null;
+        int[] suffixMax = null;
+        if(balance != null && mass != 0){
+            suffixMin = new int[horizon + 1];
+            suffixMax = new int[horizon + 1];
+            suffixMin[horizon] = suffixMax[horizon] = balance[horizon];
+            for(int t = horizon - 1; t >= 0; t--){
+                suffixMin[t] = Math.min(balance[t], suffixMin[t+1]);
+                suffixMax[t] = Math.max(balance[t], suffixMax[t+1]);
+            }
+        }
+
+        if(!force){
+            for(int t = est; t + duration <= horizon; t++){
+                if(!fitsLocation(op, t, duration)) continue;
+                if(suffixMin != null && (suffixMax[t] + mass > limit || suffixMin[t] + mass < 0)) continue;
+                int[] assigned = assignResources(op, t, duration, false);
+                if(assigned != null){
+                    schedule(op, t, duration, assigned, balance, mass);
+                    return true;
+                }
+            }
+            return false;
+        }
+        int t = Math.max(0, Math.min(Math.max(est, latestEnd), horizon - duration));
+        schedule(op, t, duration, assignResources(op, t, duration, true), balance, mass);
+        return true;
+    }
+
+    private boolean fitsLocation(int op, int start, int duration){
+        int loc = compiled.location(op);
+        int occ = compiled.occupancy(op);
+        if(occ == 0) return true;
+        if(occ > compiled.capacity(loc)) return false; //Never fits, the operation is forced and counted as a violation.
+        for(int t = start; t < start + duration; t++){
+            if(occupancy[loc][t] + occ > compiled.capacity(loc)) return false;
+        }
+        return true;
+    }
+
+    private boolean isFree(int res, int start, int duration){
+        if(start + duration > horizon || !compiled.isAvailable(res, start, start + duration)) return false;
+        for(int t = start; t < start + duration; t++) if(busy[res][t]) return false;
+        return true;
+    }
+
+    /**
+     * Assigns resources to each requirement of an operation, the requirements with the fewest compatible resources
+     * first. The resources of the relaxed solution are tried first, then the cheapest ones.
+     * @return the resource assigned to each unit of each requirement, -1 if none, null if a requirement cannot be
+     * fulfilled and the assignment is not forced
+     */
+    private int[] assignResources(int op, int start, int duration, boolean force){
+        int nReq = compiled.nRequirements(op);
+        int units = 0;
+        Integer[] order = new Integer[nReq];
+        for(int k = 0; k < nReq; k++){
+            order[k] = k;
+            units += compiled.quantity(compiled.requirement(op, k));
+        }
+        Arrays.sort(order, Comparator.comparingInt(k -> compiled.nCompatible(compiled.requirement(op, k))));
+
+        int[] assigned = new int[units * 2]; //Resource and requirement of each unit.
+        Arrays.fill(assigned, -1);
+        boolean[] used = new boolean[compiled.nResources()];
+        int unit = 0;
+        for(int k : order){
+            int req = compiled.requirement(op, k);
+            int needed = compiled.quantity(req);
+            //Free resources first, then any compatible resource if forced:
+            for(int pass = 0; pass < (force ? 2 : 1) && needed > 0; pass++){
+                for(int res : preferred[op]){
+                    if(needed == 0) break;
+                    if(!used[res] && compiled.isCompatible(req, res) && (pass == 1 || isFree(res, start, duration))){
+                        used[res] = true;
+                        assigned[unit * 2] = res;
+                        assigned[unit * 2 + 1] = k;
+                        unit++;
+                        needed--;
+                    }
+                }
+                for(int res : byCost[req]){
+                    if(needed == 0) break;
+                    if(!used[res] && (pass == 1 || isFree(res, start, duration))){
+                        used[res] = true;
+                        assigned[unit * 2] = res;
+                        assigned[unit * 2 + 1] = k;
+                        unit++;
+                        needed--;
+                    }
+                }
+            }
+            if(needed > 0 && !force) return null;
+        }
+        return assigned;
+    }
+
+    private void schedule(int op, int start, int duration, int[] assigned, int[] balance, int mass){
+        starts[op] = start;
+        resources[op] = assigned;
+        int end = Math.min(start + duration, horizon);
+        latestEnd = Math.max(latestEnd, end);
+        int loc = compiled.location(op);
+        for(int t = start; t < end; t++) occupancy[loc][t] += compiled.occupancy(op);
+        if(balance != null) for(int t = start; t <= horizon; t++) balance[t] += mass;
+        for(int u = 0; u < assigned.length; u += 2){
+            if(assigned[u] >= 0) for(int t = start; t < end; t++) busy[assigned[u]][t] = true;
+        }
+    }
+
+    private Solution toSolution(){
+        int n = compiled.nOperations();
+        Activity[] activities = new Activity[n];
+        List<Assignment> assignments = new ArrayList<>();
+        int makespan = 0;
+        int cost = 0;
+        for(int i = 0; i < n; i++){
+            int end = starts[i] + compiled.duration(i);
+            activities[i] = new Activity(i, starts[i], end);
+            makespan = Math.max(makespan, end);
+            for(int u = 0; u < resources[i].length; u += 2){
+                int res = resources[i][u];
+                if(res < 0) continue;
+                assignments.add(new Assignment(res, i, resources[i][u + 1], starts[i], end));
+                cost += compiled.duration(i) * compiled.cost(res);
+            }
+        }
+        return new Solution(instance, activities, assignments.toArray(new Assignment[0]), makespan, cost);
+    }
+}
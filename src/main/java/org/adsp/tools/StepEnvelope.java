@@ -0,0 +1,130 @@
+package org.adsp.tools;
+
+import java.util.Arrays;
+
+/**
+ * Level of detail of a cumulative step function for a time range displayed on a given number of pixels.
+ * When the function has more steps in the range than can be told apart, the steps falling in the same pixel bucket are
+ * replaced by their min/max envelope: the value entering the bucket, the maximum and minimum values reached in the
+ * bucket and the value leaving it. Steps reaching a value out of the limits of the function are never merged, so that
+ * violations are displayed with their exact times and values.
+ * <p>
+ * The function is given by the times of its steps (sorted) and the cumulated value after each step, and the result is
+ * the list of corners of the step curve.
+ */
+public final class StepEnvelope {
+    private int size = 0;
+    private double[] times = new double[64];
+    private double[] values = new double[64];
+    private int[] steps = new int[64]; //Step of each corner, -1 for the corners of merged steps.
+
+    private StepEnvelope() {}
+
+    /**
+     * @param times times of the steps, sorted
+     * @param values cumulated values after each step
+     * @param n number of steps
+     * @param from start of the time range
+     * @param to end of the time range
+     * @param buckets number of pixels of the range
+     * @param lower lower limit of the values
+     * @param upper upper limit of the values
+     * @return the corners of the curve in the time range, starting from the last step before the range
+     */
+    public static StepEnvelope of(int[] times, double[] values, int n, double from, double to, int buckets, double lower, double upper) {
+        StepEnvelope envelope = new StepEnvelope();
+        int first = Math.max(0, lastUntil(times, n, from));
+        int last = n - 1;
+        while(last > first && times[last - 1] > to) last--; //Keeping the first step after the range.
+
+        //Exact curve when the steps can be told apart:
+        if(last - first + 1 <= 2 * buckets){
+            for(int k = first; k <= last; k++) envelope.addStep(times, values, k);
+            return envelope;
+        }
+
+        double bucketWidth = (to - from) / buckets;
+        int k = first;
+        while(k <= last){
+            if(isViolation(values, k, lower, upper)){
+                envelope.addStep(times, values, k++);
+                continue;
+            }
+            //Merging the following steps of the same bucket:
+            long bucket = (long) Math.floor((times[k] - from) / bucketWidth);
+            int end = k;
+            double min = values[k], max = values[k];
+            while(end + 1 <= last && !isViolation(values, end + 1, lower, upper)
+                    && (long) Math.floor((times[end + 1] - from) / bucketWidth) == bucket){
+                end++;
+                min = Math.min(min, values[end]);
+                max = Math.max(max, values[end]);
+            }
+            if(end == k) envelope.addStep(times, values, k);
+            else{
+                double entry = k > 0 ? values[k - 1] : 0;
+                envelope.add(times[k], entry, -1);
+                envelope.add(times[k], max, -1);
+                envelope.add(times[end], min, -1);
+                envelope.add(times[end], values[end], -1);
+            }
+            k = end + 1;
+        }
+        return envelope;
+    }
+
+    /**
+     * @return the number of corners
+     */
+    public int size() {
+        return size;
+    }
+
+    public double time(int corner) {
+        return times[corner];
+    }
+
+    public double value(int corner) {
+        return values[corner];
+    }
+
+    /**
+     * @return the step of a corner, -1 if the corner is part of the envelope of merged steps
+     */
+    public int step(int corner) {
+        return steps[corner];
+    }
+
+    private static boolean isViolation(double[] values, int k, double lower, double upper) {
+        return values[k] > upper || values[k] < lower;
+    }
+
+    //Index of the last step at or before a time, -1 if none.
+    private static int lastUntil(int[] times, int n, double time) {
+        int lo = 0, hi = n;
+        while(lo < hi){
+            int mid = (lo + hi) >>> 1;
+            if(times[mid] <= time) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo - 1;
+    }
+
+    //Vertical segment of a step, from the value before the step to the value after it.
+    private void addStep(int[] times, double[] values, int k) {
+        add(times[k], k > 0 ? values[k - 1] : 0, k);
+        add(times[k], values[k], k);
+    }
+
+    private void add(double time, double value, int step) {
+        if(size == times.length){
+            times = Arrays.copyOf(times, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+            steps = Arrays.copyOf(steps, size * 2);
+        }
+        times[size] = time;
+        values[size] = value;
+        steps[size] = step;
+        size++;
+    }
+}
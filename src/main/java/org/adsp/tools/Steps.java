@@ -0,0 +1,88 @@
+package org.adsp.tools;
+
+import java.util.Arrays;
+
+/**
+ * Cumulative step function built incrementally: the value after the step at time(k) is value(k). The times and values
+ * are kept in primitive arrays which can be given as is to {@link StepEnvelope}.
+ */
+public final class Steps {
+    private int[] times = new int[16];
+    private double[] values = new double[16];
+    private String[] labels = new String[16];
+    private int size = 0;
+
+    public void add(int time, double value, String label) {
+        if(size == times.length){
+            times = Arrays.copyOf(times, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+            labels = Arrays.copyOf(labels, size * 2);
+        }
+        times[size] = time;
+        values[size] = value;
+        labels[size] = label;
+        size++;
+    }
+
+    /**
+     * Adds steps given by their variations, cumulated from the value of the last step.
+     * @param nodes times of the steps
+     * @param deltas variations of the value at each step
+     * @param labels labels of the steps, null for no label
+     */
+    public void addCumulated(int[] nodes, double[] deltas, String[] labels) {
+        double cumul = size > 0 ? values[size - 1] : 0.;
+        for(int i = 0; i < nodes.length; i++){
+            cumul += deltas[i];
+            add(nodes[i], cumul, labels[i] == null ? "" : labels[i]);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(labels, 0, size, null);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int time(int k) {
+        return times[k];
+    }
+
+    public double value(int k) {
+        return values[k];
+    }
+
+    public String label(int k) {
+        return labels[k];
+    }
+
+    /**
+     * @return the times of the steps, valid up to size()
+     */
+    public int[] times() {
+        return times;
+    }
+
+    /**
+     * @return the values after each step, valid up to size()
+     */
+    public double[] values() {
+        return values;
+    }
+
+    /**
+     * @return the index of the last step at or before a time, -1 if none
+     */
+    public int lastUntil(double time) {
+        int lo = 0, hi = size;
+        while(lo < hi){
+            int mid = (lo + hi) >>> 1;
+            if(times[mid] <= time) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo - 1;
+    }
+}
@@ -0,0 +1,64 @@
+package org.adsp.tools.binary;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes the primitive encodings of the binary format directly from a byte buffer, typically memory-mapped.
+ */
+class BinaryInput {
+    private final ByteBuffer buffer;
+    private byte[] scratch = new byte[256]; //Reused for decoding strings.
+
+    BinaryInput(ByteBuffer buffer) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    int readByte() {
+        return buffer.get() & 0xFF;
+    }
+
+    long readUnsigned() {
+        long v = 0;
+        int shift = 0;
+        byte b;
+        do{
+            b = buffer.get();
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while(b < 0);
+        return v;
+    }
+
+    long readLong() {
+        long v = readUnsigned();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    int readInt() {
+        return (int) readLong();
+    }
+
+    int readCount() {
+        return (int) readUnsigned();
+    }
+
+    double readDouble() {
+        return buffer.getDouble();
+    }
+
+    String readString(String defaultValue) {
+        int code = readCount();
+        if(code == 0) return null;
+        if(code == 1) return defaultValue;
+        int length = code - 2;
+        if(length > scratch.length) scratch = new byte[Math.max(length, scratch.length * 2)];
+        buffer.get(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    String readString() {
+        return readString(null);
+    }
+}
@@ -0,0 +1,76 @@
+package org.adsp.tools.binary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer with the primitive encodings of the binary format.
+ */
+class BinaryOutput {
+    private byte[] bytes = new byte[1 << 16];
+    private int size = 0;
+
+    private void ensure(int n) {
+        if(size + n > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + n));
+    }
+
+    void writeByte(int b) {
+        ensure(1);
+        bytes[size++] = (byte) b;
+    }
+
+    void writeBytes(byte[] b) {
+        ensure(b.length);
+        System.arraycopy(b, 0, bytes, size, b.length);
+        size += b.length;
+    }
+
+    //Unsigned LEB128 varint.
+    void writeUnsigned(long v) {
+        ensure(10);
+        while((v & ~0x7FL) != 0){
+            bytes[size++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        bytes[size++] = (byte) v;
+    }
+
+    //Zigzag varint, small negative values are encoded on few bytes.
+    void writeLong(long v) {
+        writeUnsigned((v << 1) ^ (v >> 63));
+    }
+
+    void writeInt(int v) {
+        writeLong(v);
+    }
+
+    void writeDouble(double v) {
+        long bits = Double.doubleToRawLongBits(v);
+        ensure(8);
+        for(int i = 0; i < 8; i++) bytes[size++] = (byte) (bits >>> (8 * i));
+    }
+
+    /**
+     * writes a string that can be replaced by a default value: 0 stands for null, 1 for the default value and n + 2
+     * for a string of n bytes
+     * @param s string to write
+     * @param defaultValue default value, may be null
+     */
+    void writeString(String s, String defaultValue) {
+        if(s == null) writeUnsigned(0);
+        else if(s.equals(defaultValue)) writeUnsigned(1);
+        else{
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            writeUnsigned(b.length + 2);
+            writeBytes(b);
+        }
+    }
+
+    void writeString(String s) {
+        writeString(s, null);
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+}
@@ -0,0 +1,267 @@
+package org.adsp.tools.binary;
+
+import org.adsp.datamodel.*;
+import org.adsp.tools.TimeWindow;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.adsp.tools.binary.BinaryWriter.*;
+
+/**
+ * Reads the files written by {@link BinaryWriter}. Files are memory-mapped and decoded directly from the mapping.
+ */
+public class BinaryReader {
+
+    /**
+     * @return true if the file starts with the magic bytes of the binary format
+     */
+    public static boolean isBinaryFile(String file){
+        try(InputStream in = Files.newInputStream(Path.of(file))){
+            return Arrays.equals(in.readNBytes(MAGIC.length), MAGIC);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the type of content of a binary file: instance, solution or log, null if unknown
+     */
+    public static String contentType(String file){
+        try(InputStream in = Files.newInputStream(Path.of(file))){
+            byte[] header = in.readNBytes(MAGIC.length + 2);
+            if(header.length < MAGIC.length + 2 || !Arrays.equals(Arrays.copyOf(header, MAGIC.length), MAGIC)) return null;
+            return switch (header[MAGIC.length + 1]) {
+                case INSTANCE -> "instance";
+                case SOLUTION -> "solution";
+                case LOG -> "log";
+                default -> null;
+            };
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public static Instance readInstanceFile(String file){
+        try{
+            System.out.println("reading binary instance file " + file);
+            return bytesToInstance(map(file));
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error: unable to read instance!");
+            e.printStackTrace();
+            return new Instance("error", "","",0,0,0, new Resource[0], new Location[0], new Operation[0]);
+        }
+    }
+
+    public static Solution readSolutionFile(String file){
+        try{
+            System.out.println("reading binary solution file " + file);
+            return bytesToSolution(map(file));
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error: unable to read solution!");
+            e.printStackTrace();
+            Instance instance = new Instance("error", "","",0,0,0, new Resource[0], new Location[0], new Operation[0]);
+            return new Solution(instance, new Activity[0], new Assignment[0], instance.maxTime(), 0);
+        }
+    }
+
+    public static Log readLogFile(String file){
+        try{
+            System.out.println("reading binary log file " + file);
+            return bytesToLog(map(file));
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error: unable to read log!");
+            e.printStackTrace();
+            return new Log("error", 0, 0, new LogEntry[0]);
+        }
+    }
+
+    private static MappedByteBuffer map(String file) throws IOException {
+        try(FileChannel channel = FileChannel.open(Path.of(file), StandardOpenOption.READ)){
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    public static Instance bytesToInstance(ByteBuffer bytes) throws IOException {
+        BinaryInput in = header(bytes, INSTANCE);
+        return readInstance(in);
+    }
+
+    public static Solution bytesToSolution(ByteBuffer bytes) throws IOException {
+        BinaryInput in = header(bytes, SOLUTION);
+        Instance instance = readInstance(in);
+        int makespan = in.readInt();
+        int cost = in.readInt();
+
+        Activity[] activities = new Activity[in.readCount()];
+        int[] ops = new int[activities.length];
+        int[] starts = new int[activities.length];
+        int prev = -1;
+        for(int i = 0; i < activities.length; i++) prev = ops[i] = prev + 1 + in.readInt();
+        for(int i = 0; i < activities.length; i++) starts[i] = in.readInt();
+        for(int i = 0; i < activities.length; i++) activities[i] = new Activity(ops[i], starts[i], starts[i] + in.readInt());
+
+        Assignment[] assignments = new Assignment[in.readCount()];
+        int[] resources = new int[assignments.length];
+        int[] operations = new int[assignments.length];
+        int[] requirements = new int[assignments.length];
+        starts = new int[assignments.length];
+        for(int i = 0; i < assignments.length; i++) resources[i] = in.readInt();
+        prev = 0;
+        for(int i = 0; i < assignments.length; i++) prev = operations[i] = prev + in.readInt();
+        for(int i = 0; i < assignments.length; i++) requirements[i] = in.readInt();
+        for(int i = 0; i < assignments.length; i++) starts[i] = in.readInt();
+        for(int i = 0; i < assignments.length; i++)
+            assignments[i] = new Assignment(resources[i], operations[i], requirements[i], starts[i], starts[i] + in.readInt());
+
+        return new Solution(instance, activities, assignments, makespan, cost);
+    }
+
+    public static Log bytesToLog(ByteBuffer bytes) throws IOException {
+        BinaryInput in = header(bytes, LOG);
+        String instance = in.readString();
+        int makespanBound = in.readInt();
+        int costBound = in.readInt();
+
+        int n = in.readCount();
+        double[] times = new double[n];
+        int[] makespans = new int[n];
+        int[] costs = new int[n];
+        int[] flags = new int[n];
+        for(int i = 0; i < n; i++) times[i] = in.readDouble();
+        int prev = 0;
+        for(int i = 0; i < n; i++) prev = makespans[i] = prev + in.readInt();
+        prev = 0;
+        for(int i = 0; i < n; i++) prev = costs[i] = prev + in.readInt();
+        for(int i = 0; i < n; i++) flags[i] = in.readByte();
+        LogEntry[] entries = new LogEntry[n];
+        for(int i = 0; i < n; i++){
+            SolverStats stats = (flags[i] & 2) != 0 ? readStats(in) : null;
+            entries[i] = new LogEntry(times[i], makespans[i], costs[i], (flags[i] & 1) != 0, stats);
+        }
+
+        SolverStats summary = in.readByte() != 0 ? readStats(in) : null;
+        return new Log(instance, makespanBound, costBound, entries, summary);
+    }
+
+    private static BinaryInput header(ByteBuffer bytes, int type) throws IOException {
+        BinaryInput in = new BinaryInput(bytes);
+        for(byte b : MAGIC) if(in.readByte() != b) throw new IOException("Not a binary ADSP file");
+        int version = in.readByte();
+        if(version != VERSION) throw new IOException("Unsupported binary format version " + version);
+        int fileType = in.readByte();
+        if(fileType != type) throw new IOException("Unexpected content type " + fileType + ", expected " + type);
+        return in;
+    }
+
+    private static SolverStats readStats(BinaryInput in){
+        return new SolverStats(
+                in.readDouble(),
+                in.readDouble(),
+                in.readLong(),
+                in.readLong(),
+                in.readLong(),
+                in.readInt(),
+                in.readDouble()
+        );
+    }
+
+    static Instance readInstance(BinaryInput in){
+        String id = in.readString();
+        String name = in.readString();
+        String version = in.readString();
+        int maxTime = in.readInt();
+        int balanceAF = in.readInt();
+        int balanceLR = in.readInt();
+
+        String[] strings = new String[in.readCount()];
+        for(int i = 0; i < strings.length; i++) strings[i] = in.readString();
+        String[][] categoryLists = new String[in.readCount()][];
+        for(int i = 0; i < categoryLists.length; i++){
+            categoryLists[i] = new String[in.readCount()];
+            for(int j = 0; j < categoryLists[i].length; j++) categoryLists[i][j] = readIndexed(in, strings);
+        }
+
+        int nRes = in.readCount();
+        int[] resIds = new int[nRes];
+        String[] resNames = new String[nRes];
+        String[] resCategories = new String[nRes];
+        int[] resCosts = new int[nRes];
+        int[] nWindows = new int[nRes];
+        for(int i = 0; i < nRes; i++) resIds[i] = i + in.readInt();
+        for(int i = 0; i < nRes; i++) resNames[i] = in.readString("Resource " + resIds[i]);
+        for(int i = 0; i < nRes; i++) resCategories[i] = readIndexed(in, strings);
+        for(int i = 0; i < nRes; i++) resCosts[i] = in.readInt();
+        for(int i = 0; i < nRes; i++) nWindows[i] = in.readCount();
+        Resource[] resources = new Resource[nRes];
+        for(int i = 0; i < nRes; i++){
+            TimeWindow[] windows = new TimeWindow[nWindows[i]];
+            for(int w = 0; w < windows.length; w++){
+                int start = in.readInt();
+                windows[w] = new TimeWindow(start, start + in.readInt());
+            }
+            resources[i] = new Resource(resIds[i], resNames[i], resCategories[i], windows, resCosts[i]);
+        }
+
+        int nLoc = in.readCount();
+        int[] locIds = new int[nLoc];
+        String[] locNames = new String[nLoc];
+        String[] zones = new String[nLoc];
+        for(int i = 0; i < nLoc; i++) locIds[i] = i + in.readInt();
+        for(int i = 0; i < nLoc; i++) locNames[i] = in.readString("Location " + locIds[i]);
+        for(int i = 0; i < nLoc; i++) zones[i] = readIndexed(in, strings);
+        Location[] locations = new Location[nLoc];
+        for(int i = 0; i < nLoc; i++) locations[i] = new Location(locIds[i], locNames[i], zones[i], in.readInt());
+
+        int nOps = in.readCount();
+        int[] ids = new int[nOps];
+        String[] names = new String[nOps];
+        String[] cards = new String[nOps];
+        int[] durations = new int[nOps];
+        int[] locs = new int[nOps];
+        int[] occupancies = new int[nOps];
+        int[] masses = new int[nOps];
+        Requirement[][] requirements = new Requirement[nOps][];
+        int[][] precedences = new int[nOps][];
+        for(int i = 0; i < nOps; i++) ids[i] = i + in.readInt();
+        for(int i = 0; i < nOps; i++) names[i] = in.readString("Operation " + ids[i]);
+        for(int i = 0; i < nOps; i++) cards[i] = in.readString(String.valueOf(ids[i]));
+        for(int i = 0; i < nOps; i++) durations[i] = in.readInt();
+        for(int i = 0; i < nOps; i++) locs[i] = in.readInt();
+        for(int i = 0; i < nOps; i++) occupancies[i] = in.readInt();
+        for(int i = 0; i < nOps; i++) masses[i] = in.readInt();
+        for(int i = 0; i < nOps; i++) requirements[i] = new Requirement[in.readCount()];
+        for(int i = 0; i < nOps; i++) for(int j = 0; j < requirements[i].length; j++){
+            int list = in.readCount();
+            requirements[i][j] = new Requirement(list == 0 ? null : categoryLists[list - 1], in.readInt());
+        }
+        for(int i = 0; i < nOps; i++) precedences[i] = new int[in.readCount()];
+        for(int i = 0; i < nOps; i++) for(int j = 0; j < precedences[i].length; j++) precedences[i][j] = ids[i] - in.readInt();
+        Operation[] operations = new Operation[nOps];
+        for(int i = 0; i < nOps; i++) operations[i] = new Operation(
+                ids[i],
+                names[i],
+                cards[i],
+                durations[i],
+                locs[i],
+                occupancies[i],
+                masses[i],
+                requirements[i],
+                precedences[i]
+        );
+
+        return new Instance(id, name, version, maxTime, balanceAF, balanceLR, resources, locations, operations);
+    }
+
+    private static String readIndexed(BinaryInput in, String[] dictionary){
+        int index = in.readCount();
+        return index == 0 ? null : dictionary[index - 1];
+    }
+}
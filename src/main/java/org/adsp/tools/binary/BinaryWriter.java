@@ -0,0 +1,221 @@
+package org.adsp.tools.binary;
+
+import org.adsp.datamodel.*;
+import org.adsp.tools.TimeWindow;
+import org.adsp.tools.json.JsonWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Writes instances, solutions and logs in a compact binary format.
+ * <p>
+ * Files start with the magic bytes "ADSB", a format version and the type of content. Integers are encoded as zigzag
+ * varints and doubles on 8 bytes. The elements of each list are written column by column (e.g. the durations of all
+ * the operations, then all their locations...) and values that are close to the previous ones in the column or to the
+ * index of the element are encoded as differences. Strings that repeat (categories and zones) are written once in a
+ * dictionary, and names that follow the default pattern of anonymized instances ("Operation 12") take a single byte.
+ * The conversion from and to json is lossless.
+ */
+public class BinaryWriter {
+    public static final String EXTENSION = ".adsb";
+
+    static final byte[] MAGIC = {'A', 'D', 'S', 'B'};
+    static final int VERSION = 1;
+    static final int INSTANCE = 1;
+    static final int SOLUTION = 2;
+    static final int LOG = 3;
+
+    public static void writeInstanceToFile(Instance instance, String path){
+        writeToFileAtomic(instanceToBytes(instance), target(path, instance.name()));
+    }
+
+    public static void writeSolutionToFile(Solution solution, String path){
+        writeToFileAtomic(solutionToBytes(solution), target(path, solution.instance().name()));
+    }
+
+    public static void writeLogToFile(Log log, String path){
+        writeToFileAtomic(logToBytes(log), target(path, log.instance()));
+    }
+
+    public static byte[] instanceToBytes(Instance instance){
+        BinaryOutput out = header(INSTANCE);
+        writeInstance(out, instance);
+        return out.toByteArray();
+    }
+
+    public static byte[] solutionToBytes(Solution solution){
+        BinaryOutput out = header(SOLUTION);
+        writeInstance(out, solution.instance());
+        out.writeInt(solution.makespan());
+        out.writeInt(solution.cost());
+
+        Activity[] activities = solution.activities();
+        out.writeUnsigned(activities.length);
+        int prev = -1;
+        for(Activity act : activities){
+            out.writeInt(act.operation() - prev - 1);
+            prev = act.operation();
+        }
+        for(Activity act : activities) out.writeInt(act.start());
+        for(Activity act : activities) out.writeInt(act.end() - act.start());
+
+        Assignment[] assignments = solution.assignments();
+        out.writeUnsigned(assignments.length);
+        for(Assignment ass : assignments) out.writeInt(ass.resource());
+        prev = 0;
+        for(Assignment ass : assignments){
+            out.writeInt(ass.operation() - prev);
+            prev = ass.operation();
+        }
+        for(Assignment ass : assignments) out.writeInt(ass.requirement());
+        for(Assignment ass : assignments) out.writeInt(ass.start());
+        for(Assignment ass : assignments) out.writeInt(ass.end() - ass.start());
+        return out.toByteArray();
+    }
+
+    public static byte[] logToBytes(Log log){
+        BinaryOutput out = header(LOG);
+        out.writeString(log.instance());
+        out.writeInt(log.makespanBound());
+        out.writeInt(log.costBound());
+
+        LogEntry[] entries = log.log();
+        out.writeUnsigned(entries.length);
+        for(LogEntry entry : entries) out.writeDouble(entry.time());
+        int prev = 0;
+        for(LogEntry entry : entries){
+            out.writeInt(entry.makespan() - prev);
+            prev = entry.makespan();
+        }
+        prev = 0;
+        for(LogEntry entry : entries){
+            out.writeInt(entry.cost() - prev);
+            prev = entry.cost();
+        }
+        for(LogEntry entry : entries) out.writeByte((entry.optimal() ? 1 : 0) | (entry.stats() != null ? 2 : 0));
+        for(LogEntry entry : entries) if(entry.stats() != null) writeStats(out, entry.stats());
+
+        out.writeByte(log.summary() != null ? 1 : 0);
+        if(log.summary() != null) writeStats(out, log.summary());
+        return out.toByteArray();
+    }
+
+    private static BinaryOutput header(int type){
+        BinaryOutput out = new BinaryOutput();
+        out.writeBytes(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(type);
+        return out;
+    }
+
+    private static void writeStats(BinaryOutput out, SolverStats stats){
+        out.writeDouble(stats.objBound());
+        out.writeDouble(stats.gap());
+        out.writeLong(stats.branches());
+        out.writeLong(stats.fails());
+        out.writeLong(stats.memory());
+        out.writeInt(stats.workers());
+        out.writeDouble(stats.solveTime());
+    }
+
+    static void writeInstance(BinaryOutput out, Instance instance){
+        out.writeString(instance.id());
+        out.writeString(instance.name());
+        out.writeString(instance.version());
+        out.writeInt(instance.maxTime());
+        out.writeInt(instance.balanceAF());
+        out.writeInt(instance.balanceLR());
+
+        //Dictionaries of strings and of lists of categories:
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        Map<List<String>, Integer> categoryLists = new LinkedHashMap<>();
+        for(Resource res : instance.resources()) index(strings, res.category());
+        for(Location loc : instance.locations()) index(strings, loc.zone());
+        for(Operation op : instance.operations()) for(Requirement req : op.resources()) if(req.category() != null){
+            for(String cat : req.category()) index(strings, cat);
+            categoryLists.putIfAbsent(Arrays.asList(req.category()), categoryLists.size());
+        }
+        out.writeUnsigned(strings.size());
+        for(String s : strings.keySet()) out.writeString(s);
+        out.writeUnsigned(categoryLists.size());
+        for(List<String> list : categoryLists.keySet()){
+            out.writeUnsigned(list.size());
+            for(String cat : list) writeIndex(out, strings, cat);
+        }
+
+        Resource[] resources = instance.resources();
+        out.writeUnsigned(resources.length);
+        for(int i = 0; i < resources.length; i++) out.writeInt(resources[i].id() - i);
+        for(Resource res : resources) out.writeString(res.name(), "Resource " + res.id());
+        for(Resource res : resources) writeIndex(out, strings, res.category());
+        for(Resource res : resources) out.writeInt(res.cost());
+        for(Resource res : resources) out.writeUnsigned(res.unavailable().length);
+        for(Resource res : resources) for(TimeWindow w : res.unavailable()){
+            out.writeInt(w.start());
+            out.writeInt(w.end() - w.start());
+        }
+
+        Location[] locations = instance.locations();
+        out.writeUnsigned(locations.length);
+        for(int i = 0; i < locations.length; i++) out.writeInt(locations[i].id() - i);
+        for(Location loc : locations) out.writeString(loc.name(), "Location " + loc.id());
+        for(Location loc : locations) writeIndex(out, strings, loc.zone());
+        for(Location loc : locations) out.writeInt(loc.capacity());
+
+        Operation[] operations = instance.operations();
+        out.writeUnsigned(operations.length);
+        for(int i = 0; i < operations.length; i++) out.writeInt(operations[i].id() - i);
+        for(Operation op : operations) out.writeString(op.name(), "Operation " + op.id());
+        for(Operation op : operations) out.writeString(op.card(), String.valueOf(op.id()));
+        for(Operation op : operations) out.writeInt(op.duration());
+        for(Operation op : operations) out.writeInt(op.location());
+        for(Operation op : operations) out.writeInt(op.occupancy());
+        for(Operation op : operations) out.writeInt(op.mass());
+        for(Operation op : operations) out.writeUnsigned(op.resources().length);
+        for(Operation op : operations) for(Requirement req : op.resources()){
+            out.writeUnsigned(req.category() == null ? 0 : categoryLists.get(Arrays.asList(req.category())) + 1);
+            out.writeInt(req.quantity());
+        }
+        for(Operation op : operations) out.writeUnsigned(op.precedences().length);
+        for(Operation op : operations) for(int p : op.precedences()) out.writeInt(op.id() - p);
+    }
+
+    private static void index(Map<String, Integer> dictionary, String s){
+        if(s != null) dictionary.putIfAbsent(s, dictionary.size());
+    }
+
+    //Writes the index of a string in the dictionary, shifted by one so that 0 stands for null.
+    private static void writeIndex(BinaryOutput out, Map<String, Integer> dictionary, String s){
+        out.writeUnsigned(s == null ? 0 : dictionary.get(s) + 1);
+    }
+
+    private static File target(String path, String name){
+        File out = new File(path);
+        return out.isDirectory() ? new File(out.getAbsolutePath() + "/" + name + EXTENSION) : out;
+    }
+
+    /**
+     * Writes bytes to a temporary file next to the target file, then moves it in place of the target file.
+     * @return true if the file was written
+     */
+    public static boolean writeToFileAtomic(byte[] bytes, File file){
+        Path tmp = null;
+        try{
+            File dir = file.getAbsoluteFile().getParentFile();
+            dir.mkdirs();
+            tmp = JsonWriter.tempFile(file);
+            Files.write(tmp, bytes);
+            JsonWriter.replaceAtomic(tmp, file);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Unable to write to file " + file + "!");
+            e.printStackTrace();
+            if(tmp != null) tmp.toFile().delete();
+            return false;
+        }
+    }
+}
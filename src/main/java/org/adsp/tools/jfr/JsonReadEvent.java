@@ -0,0 +1,28 @@
+package org.adsp.tools.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event recording the reading of a json file.
+ */
+@Name("org.adsp.JsonRead")
+@Label("Json Read")
+@Category({"ADSP", "IO"})
+@Description("Reading and binding of an instance, solution, log or checkpoint file")
+public class JsonReadEvent extends Event {
+    @Label("File")
+    public String file;
+
+    @Label("Type")
+    @Description("Type of object read: instance, solution, log or checkpoint")
+    public String type;
+
+    @Label("Size")
+    @DataAmount
+    public long size;
+
+    public JsonReadEvent(String type, String file) {
+        this.type = type;
+        this.file = file;
+    }
+}
@@ -0,0 +1,32 @@
+package org.adsp.tools.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event recording the writing of a json file.
+ */
+@Name("org.adsp.JsonWrite")
+@Label("Json Write")
+@Category({"ADSP", "IO"})
+@Description("Serialisation of an object to a json file")
+public class JsonWriteEvent extends Event {
+    @Label("File")
+    public String file;
+
+    @Label("Type")
+    @Description("Class of the object written")
+    public String type;
+
+    @Label("Pretty Printed")
+    public boolean pretty;
+
+    @Label("Size")
+    @DataAmount
+    public long size;
+
+    public JsonWriteEvent(String type, String file, boolean pretty) {
+        this.type = type;
+        this.file = file;
+        this.pretty = pretty;
+    }
+}
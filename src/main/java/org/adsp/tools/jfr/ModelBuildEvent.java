@@ -0,0 +1,32 @@
+package org.adsp.tools.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event recording the construction of a CP Optimizer model.
+ */
+@Name("org.adsp.ModelBuild")
+@Label("Model Build")
+@Category({"ADSP", "Model"})
+@Description("Construction of the variables and constraints of a model")
+public class ModelBuildEvent extends Event {
+    @Label("Model")
+    public String model;
+
+    @Label("Instance")
+    public String instance;
+
+    @Label("Operations")
+    public int operations;
+
+    @Label("Interval Variables")
+    public int intervals;
+
+    @Label("Constraints")
+    public int constraints;
+
+    public ModelBuildEvent(String model, String instance) {
+        this.model = model;
+        this.instance = instance;
+    }
+}
@@ -0,0 +1,40 @@
+package org.adsp.tools.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event recording a search phase on one objective.
+ */
+@Name("org.adsp.SearchPhase")
+@Label("Search Phase")
+@Category({"ADSP", "Search"})
+@Description("Search of the solver on one objective")
+public class SearchPhaseEvent extends Event {
+    @Label("Search")
+    @Description("Kind of search: LEX, ILEX, MK or CST")
+    public String search;
+
+    @Label("Phase")
+    public int phase;
+
+    @Label("Objective")
+    public String objective;
+
+    @Label("Solutions")
+    @Description("Number of solutions found during the phase")
+    public int solutions;
+
+    @Label("Best Value")
+    @Description("Best value of the objective at the end of the phase")
+    public int bestValue;
+
+    @Label("Bound")
+    @Description("Bound of the objective at the end of the phase")
+    public double bound;
+
+    public SearchPhaseEvent(String search, int phase, String objective) {
+        this.search = search;
+        this.phase = phase;
+        this.objective = objective;
+    }
+}
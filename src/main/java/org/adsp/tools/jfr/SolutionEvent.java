@@ -0,0 +1,27 @@
+package org.adsp.tools.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event recording the processing of a new solution found by the solver.
+ */
+@Name("org.adsp.Solution")
+@Label("Solution Processing")
+@Category({"ADSP", "Search"})
+@Description("Extraction, logging and publication of a new solution")
+public class SolutionEvent extends Event {
+    @Label("Makespan")
+    public int makespan;
+
+    @Label("Cost")
+    public int cost;
+
+    @Label("Extraction Time")
+    @Description("Time spent extracting the values of the solution from the solver")
+    @Timespan(Timespan.NANOSECONDS)
+    public long extractionTime;
+
+    @Label("Materialised")
+    @Description("Whether the solution record was built and published")
+    public boolean materialised;
+}
@@ -1,10 +1,15 @@
 package org.adsp.tools.json;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.adsp.datamodel.*;
+import org.adsp.tools.InstanceResolver;
+import org.adsp.tools.jfr.JsonReadEvent;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 
 public class JsonReader {
     static ObjectMapper mapper = new JacksonMapper().getMapper();
@@ -12,7 +17,7 @@ public class JsonReader {
     public static Instance readInstanceFile(String file){
         try{
             System.out.println("reading instance file " + file);
-            Instance instance = mapper.readValue(new File(file), Instance.class);
+            Instance instance = read(file, Instance.class, "instance");
 //            JsonWriter.printInstance(instance);
 
             return instance;
@@ -23,13 +28,31 @@ public class JsonReader {
         }
     }
 
+    /**
+     * reads an instance from a stream of json, such as the body of a request
+     */
+    public static Instance readInstance(InputStream in){
+        try{
+            return mapper.readValue(in, Instance.class);
+        } catch (IOException e) {
+            System.out.println("Error: unable to read instance!");
+            e.printStackTrace();
+            return new Instance("error", "","",0,0,0, new Resource[0], new Location[0], new Operation[0]);
+        }
+    }
+
     public static Solution readSolutionFile(String file) {
         try{
             System.out.println("reading solution file " + file);
-            Solution solution = mapper.readValue(new File(file), Solution.class);
-//            JsonWriter.printSolution(solution);
+            StoredSolution stored = read(file, StoredSolution.class, "solution");
+            if(stored.instance() != null) return stored.toSolution(null);
 
-            return solution;
+            //Instance referenced, looked up from the folder of the results first:
+            InstanceRef ref = stored.instanceRef();
+            File resultsDir = new File(file).getAbsoluteFile().getParentFile().getParentFile();
+            Instance instance = InstanceResolver.getDefault().resolve(ref, resultsDir.getPath());
+            if(instance == null) throw new IOException("Instance " + ref.id() + " with hash " + ref.hash() + " not found");
+            return stored.toSolution(instance);
         } catch (IOException e) {
             System.out.println("Error: unable to read solution!");
             e.printStackTrace();
@@ -41,7 +64,7 @@ public class JsonReader {
     public static Log readLogFile(String file) {
         try{
             System.out.println("reading log file " + file);
-            Log log = mapper.readValue(new File(file), Log.class);
+            Log log = read(file, Log.class, "log");
 //            JsonWriter.printLog(log);
 
             return log;
@@ -51,4 +74,52 @@ public class JsonReader {
             return new Log("error", 0, 0, new LogEntry[0]);
         }
     }
+
+    public static Checkpoint readCheckpointFile(String file) {
+        try{
+            System.out.println("reading checkpoint file " + file);
+            return read(file, Checkpoint.class, "checkpoint");
+        } catch (IOException e) {
+            System.out.println("Error: unable to read checkpoint!");
+            e.printStackTrace();
+            return new Checkpoint("error", null, "", 0, Integer.MAX_VALUE, Integer.MAX_VALUE, 0, 0, 0, null, new LogEntry[0]);
+        }
+    }
+
+    /**
+     * determines the type of content of a json file from its top level fields, without binding it
+     * @return the type of content: instance, solution, log or checkpoint, null if unknown
+     */
+    public static String contentType(String file) {
+        boolean hasLog = false;
+        try(JsonParser parser = mapper.getFactory().createParser(JsonStreamReader.open(file))){
+            if(parser.nextToken() != JsonToken.START_OBJECT) return null;
+            while(parser.nextToken() == JsonToken.FIELD_NAME){
+                switch (parser.getCurrentName()) {
+                    case "activities": return "solution";
+                    case "operations": return "instance";
+                    case "search": return "checkpoint";
+                    case "log": hasLog = true;
+                }
+                parser.nextToken();
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            System.out.println("Error: unable to read file " + file);
+            return null;
+        }
+        return hasLog ? "log" : null;
+    }
+
+    //Binds a json file to an object, recording a JsonRead event.
+    private static <T> T read(String file, Class<T> type, String kind) throws IOException {
+        JsonReadEvent event = new JsonReadEvent(kind, file);
+        event.begin();
+        T object = mapper.readValue(JsonStreamReader.open(file), type);
+        if(event.shouldCommit()){
+            event.size = new File(file).length();
+            event.commit();
+        }
+        return object;
+    }
 }
@@ -0,0 +1,158 @@
+package org.adsp.tools.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.adsp.datamodel.Activity;
+import org.adsp.datamodel.Assignment;
+import org.adsp.datamodel.LogEntry;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads parts of json files without binding the whole file, using the token api of Jackson.
+ * Selected fields can be pulled from a file and the elements of a list can be iterated one at a time, so that
+ * memory stays bounded whatever the size of the file. Gzip-compressed files are detected and decompressed on the fly.
+ */
+public class JsonStreamReader {
+
+    /**
+     * opens a file, decompressing it if it is gzip-compressed
+     * @param file path of the file
+     * @return a stream on the (decompressed) content of the file
+     */
+    public static InputStream open(String file) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16);
+        in.mark(2);
+        int b1 = in.read();
+        int b2 = in.read();
+        in.reset();
+        if(b1 == 0x1f && b2 == 0x8b) return new BufferedInputStream(new GZIPInputStream(in, 1 << 16), 1 << 16);
+        return in;
+    }
+
+    /**
+     * reads selected fields of a file. Fields of nested objects are selected with their path, e.g. "instance.name".
+     * The reading stops as soon as all the fields are found.
+     * @param file path of the file
+     * @param fields paths of the fields to read
+     * @return the values of the fields found, by path
+     */
+    public static Map<String, JsonNode> readFields(String file, String... fields) throws IOException {
+        Set<String> wanted = new HashSet<>(Arrays.asList(fields));
+        Map<String, JsonNode> values = new HashMap<>();
+        try(JsonParser parser = JsonReader.mapper.getFactory().createParser(open(file))){
+            if(parser.nextToken() == JsonToken.START_OBJECT) readFields(parser, "", wanted, values);
+        }
+        return values;
+    }
+
+    //Reads the fields of the current object. Returns false when all the fields have been found.
+    private static boolean readFields(JsonParser parser, String prefix, Set<String> wanted, Map<String, JsonNode> values) throws IOException {
+        while(parser.nextToken() == JsonToken.FIELD_NAME){
+            String path = prefix + parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if(wanted.contains(path)){
+                values.put(path, JsonReader.mapper.readTree(parser));
+                if(values.size() == wanted.size()) return false;
+            } else if(token == JsonToken.START_OBJECT && isPrefix(path + ".", wanted)){
+                if(!readFields(parser, path + ".", wanted, values)) return false;
+            } else parser.skipChildren();
+        }
+        return true;
+    }
+
+    private static boolean isPrefix(String prefix, Set<String> paths){
+        for(String path : paths) if(path.startsWith(prefix)) return true;
+        return false;
+    }
+
+    /**
+     * reads a single top level field of a file
+     * @return the value of the field, null if the field is not found
+     */
+    public static <T> T readField(String file, String field, Class<T> type) throws IOException {
+        JsonNode node = readFields(file, field).get(field);
+        return node == null ? null : JsonReader.mapper.treeToValue(node, type);
+    }
+
+    /**
+     * iterates over the elements of a top level list of a file, binding one element at a time.
+     * The iterator must be closed to release the file.
+     * @param file path of the file
+     * @param field name of the list
+     * @param type type of the elements
+     */
+    public static <T> ElementIterator<T> iterate(String file, String field, Class<T> type) throws IOException {
+        JsonParser parser = JsonReader.mapper.getFactory().createParser(open(file));
+        try{
+            if(parser.nextToken() == JsonToken.START_OBJECT){
+                while(parser.nextToken() == JsonToken.FIELD_NAME){
+                    boolean found = parser.getCurrentName().equals(field);
+                    if(parser.nextToken() == JsonToken.START_ARRAY && found) return new ElementIterator<>(parser, type);
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            parser.close();
+            throw e;
+        }
+        return new ElementIterator<>(parser, null);
+    }
+
+    public static ElementIterator<Activity> activities(String file) throws IOException {
+        return iterate(file, "activities", Activity.class);
+    }
+
+    public static ElementIterator<Assignment> assignments(String file) throws IOException {
+        return iterate(file, "assignments", Assignment.class);
+    }
+
+    public static ElementIterator<LogEntry> logEntries(String file) throws IOException {
+        return iterate(file, "log", LogEntry.class);
+    }
+
+    /**
+     * Iterator over the elements of a list in a json file.
+     */
+    public static class ElementIterator<T> implements Iterator<T>, AutoCloseable {
+        private final JsonParser parser;
+        private final Class<T> type; //Null if the list was not found.
+        private Boolean hasNext;
+
+        private ElementIterator(JsonParser parser, Class<T> type) {
+            this.parser = parser;
+            this.type = type;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if(hasNext == null){
+                try{
+                    hasNext = type != null && parser.nextToken() == JsonToken.START_OBJECT;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            if(!hasNext()) throw new NoSuchElementException();
+            hasNext = null;
+            try{
+                return JsonReader.mapper.readValue(parser, type);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+}
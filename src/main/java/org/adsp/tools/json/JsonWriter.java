@@ -2,26 +2,27 @@ package org.adsp.tools.json;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.adsp.datamodel.Instance;
-import org.adsp.datamodel.Log;
-import org.adsp.datamodel.Solution;
+import org.adsp.datamodel.*;
+import org.adsp.tools.jfr.JsonWriteEvent;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
 
 public class JsonWriter {
     static ObjectMapper mapper = new JacksonMapper().getMapper();
 
     public static void writeInstanceToFile(Instance instance, String path){
-        try{
-            File out = new File(path);
-            File file = out.isDirectory() ? new File(out.getAbsolutePath() + "/" + instance.name() + ".json") : out;
-            file.getParentFile().mkdirs();
-            mapper.writerWithDefaultPrettyPrinter().writeValue(file, instance);
-        } catch (IOException e) {
-            System.out.println("Unable to write to specified file!");
-            e.printStackTrace();
-        }
+        File out = new File(path);
+        File file = out.isDirectory() ? new File(out.getAbsolutePath() + "/" + instance.name() + ".json") : out;
+        writeToFileAtomic(instance, file, true);
     }
 
     public static void printInstance(Instance instance){
@@ -34,15 +35,21 @@ public class JsonWriter {
     }
 
     public static void writeSolutionToFile(Solution solution, String path){
-        try{
-            File out = new File(path);
-            File file = out.isDirectory() ? new File(out.getAbsolutePath() + "/" + solution.instance().name() + ".json") : out;
-            file.getParentFile().mkdirs();
-            mapper.writerWithDefaultPrettyPrinter().writeValue(file, solution);
-        } catch (IOException e) {
-            System.out.println("Unable to write to specified file!");
-            e.printStackTrace();
-        }
+        File out = new File(path);
+        File file = out.isDirectory() ? new File(out.getAbsolutePath() + "/" + solution.instance().name() + ".json") : out;
+        writeToFileAtomic(solution, file, true);
+    }
+
+    /**
+     * writes a solution to a file, either with its instance embedded or with a reference to its instance
+     * @param solution solution to write
+     * @param path path of the file or folder
+     * @param ref reference to the instance, null to embed the instance
+     */
+    public static void writeSolutionToFile(Solution solution, String path, InstanceRef ref){
+        File out = new File(path);
+        File file = out.isDirectory() ? new File(out.getAbsolutePath() + "/" + solution.instance().name() + ".json") : out;
+        writeToFileAtomic(new StoredSolution(solution, ref), file, true);
     }
 
     public static void printSolution(Solution solution){
@@ -63,18 +70,36 @@ public class JsonWriter {
         }
     }
 
-    public static void writeLogToFile(Log log, String path) {
-        try{
-            File out = new File(path);
-            File file = out.isDirectory() ? new File(out.getAbsolutePath() + "/" + log.instance() + ".json") : out;
-            file.getParentFile().mkdirs();
-            mapper.writerWithDefaultPrettyPrinter().writeValue(file, log);
-        } catch (IOException e) {
-            System.out.println("Unable to write to specified file!");
-            e.printStackTrace();
+    /**
+     * @return the compact json encoding of an object, on a single line
+     */
+    public static String objectToCompactString(Object object){
+        try {
+            return mapper.writer().writeValueAsString(object);
+        } catch (JsonProcessingException e) {
+            System.out.println("Error: Unable to map object to string\n" + e);
+            return "";
+        }
+    }
+
+    /**
+     * @return the SHA-256 hash of the compact json encoding of an object, in hexadecimal
+     */
+    public static String contentHash(Object object){
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(mapper.writer().writeValueAsBytes(object)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
         }
     }
 
+    public static void writeLogToFile(Log log, String path) {
+        File out = new File(path);
+        File file = out.isDirectory() ? new File(out.getAbsolutePath() + "/" + log.instance() + ".json") : out;
+        writeToFileAtomic(log, file, true);
+    }
+
     public static void printLog(Log log){
         try{
             String prettyLog = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(log);
@@ -83,4 +108,63 @@ public class JsonWriter {
             System.out.println("Error: Unable to print log\n" + e);
         }
     }
+
+    /**
+     * Writes an object to a temporary file next to the target file, then moves it in place of the target file.
+     * Readers of the target file thus only ever see a complete file.
+     * @param object object to write
+     * @param file target file
+     * @param pretty whether to pretty print the json
+     * @return true if the file was written
+     */
+    public static boolean writeToFileAtomic(Object object, File file, boolean pretty){
+        JsonWriteEvent event = new JsonWriteEvent(object.getClass().getSimpleName(), file.getPath(), pretty);
+        event.begin();
+        Path tmp = null;
+        try{
+            File dir = file.getAbsoluteFile().getParentFile();
+            dir.mkdirs();
+            tmp = tempFile(file);
+            if(pretty) mapper.writerWithDefaultPrettyPrinter().writeValue(tmp.toFile(), object);
+            else mapper.writer().writeValue(tmp.toFile(), object);
+            replaceAtomic(tmp, file);
+            if(event.shouldCommit()){
+                event.size = file.length();
+                event.commit();
+            }
+            return true;
+        } catch (IOException e) {
+            System.out.println("Unable to write to file " + file + "!");
+            e.printStackTrace();
+            if(tmp != null) tmp.toFile().delete();
+            return false;
+        }
+    }
+
+    /**
+     * @return a temporary path next to a file. The temporary file is created when written, with the default
+     * permissions of the process.
+     */
+    public static Path tempFile(File file){
+        return file.getAbsoluteFile().toPath().resolveSibling(file.getName() + "." + UUID.randomUUID() + ".tmp");
+    }
+
+    /**
+     * Moves a temporary file in place of a file, atomically if the file system allows it. If the file already exists,
+     * its permissions are kept.
+     */
+    public static void replaceAtomic(Path tmp, File file) throws IOException {
+        if(file.exists()){
+            try {
+                Files.setPosixFilePermissions(tmp, Files.getPosixFilePermissions(file.toPath()));
+            } catch (UnsupportedOperationException e) {
+                //No POSIX permissions on this file system.
+            }
+        }
+        try{
+            Files.move(tmp, file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
 }
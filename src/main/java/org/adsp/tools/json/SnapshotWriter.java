@@ -0,0 +1,61 @@
+package org.adsp.tools.json;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes snapshots of an object to a json file from a background thread.
+ * Submitting a snapshot never blocks: if several snapshots are submitted while a write is in progress,
+ * only the newest one is written. Each write goes to a temporary file which then replaces the target file,
+ * so that the file on disk always contains a complete snapshot.
+ * @param <T> type of the written objects
+ */
+public class SnapshotWriter<T> implements AutoCloseable {
+    private final File file;
+    private final AtomicReference<T> pending = new AtomicReference<>();
+    private final Thread thread;
+    private volatile boolean closed = false;
+
+    /**
+     * @param path path of the file to which snapshots are written
+     */
+    public SnapshotWriter(String path) {
+        this.file = new File(path);
+        thread = new Thread(this::run, "snapshot-writer " + file.getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * submits a new snapshot to write, replacing any snapshot that has not been written yet
+     * @param snapshot object to write
+     */
+    public void submit(T snapshot) {
+        pending.set(snapshot);
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        while(true) {
+            T snapshot = pending.getAndSet(null);
+            if(snapshot != null) JsonWriter.writeToFileAtomic(snapshot, file, false);
+            else if(closed) return;
+            else LockSupport.park(this);
+        }
+    }
+
+    /**
+     * writes the last submitted snapshot if needed and stops the writer thread
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
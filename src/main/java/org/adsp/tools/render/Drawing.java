@@ -0,0 +1,41 @@
+package org.adsp.tools.render;
+
+import java.awt.Color;
+
+/**
+ * Target of the headless renderer: a fixed size drawing on which shapes are drawn in order, without scene graph.
+ * Coordinates are in pixels from the top left corner.
+ */
+public interface Drawing extends AutoCloseable {
+    enum Anchor {START, MIDDLE, END}
+
+    /**
+     * fill a rectangle
+     * @param stroke color of the border, no border if null
+     */
+    void rect(double x, double y, double width, double height, Color fill, Color stroke);
+
+    void line(double x1, double y1, double x2, double y2, Color color, double width, boolean dashed);
+
+    /**
+     * fill a polygon
+     * @param xs x of the corners
+     * @param ys y of the corners
+     * @param n number of corners
+     * @param stroke color of the border, no border if null
+     */
+    void polygon(double[] xs, double[] ys, int n, Color fill, Color stroke);
+
+    /**
+     * draw a text
+     * @param y y of the baseline of the text
+     * @param anchor part of the text aligned on x
+     */
+    void text(double x, double y, String text, double size, Color color, Anchor anchor);
+
+    /**
+     * finish the drawing and write it
+     */
+    @Override
+    void close() throws java.io.IOException;
+}
@@ -0,0 +1,85 @@
+package org.adsp.tools.render;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Drawing rasterised in memory and written to a png file when closed.
+ */
+public class PngDrawing implements Drawing {
+    private static final Stroke LINE = new BasicStroke(1);
+
+    private final File file;
+    private final BufferedImage image;
+    private final Graphics2D g;
+    private final Rectangle2D.Double rect = new Rectangle2D.Double();
+    private final Line2D.Double line = new Line2D.Double();
+
+    public PngDrawing(File file, int width, int height) {
+        this.file = file;
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+    }
+
+    @Override
+    public void rect(double x, double y, double width, double height, Color fill, Color stroke) {
+        rect.setRect(x, y, width, height);
+        g.setColor(fill);
+        g.fill(rect);
+        if(stroke != null){
+            g.setColor(stroke);
+            g.setStroke(LINE);
+            g.draw(rect);
+        }
+    }
+
+    @Override
+    public void line(double x1, double y1, double x2, double y2, Color color, double width, boolean dashed) {
+        line.setLine(x1, y1, x2, y2);
+        g.setColor(color);
+        g.setStroke(dashed ? new BasicStroke((float) width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10, new float[]{8}, 0)
+                : new BasicStroke((float) width));
+        g.draw(line);
+    }
+
+    @Override
+    public void polygon(double[] xs, double[] ys, int n, Color fill, Color stroke) {
+        if(n == 0) return;
+        Path2D.Double path = new Path2D.Double(Path2D.WIND_NON_ZERO, n);
+        path.moveTo(xs[0], ys[0]);
+        for(int i = 1; i < n; i++) path.lineTo(xs[i], ys[i]);
+        path.closePath();
+        g.setColor(fill);
+        g.fill(path);
+        if(stroke != null){
+            g.setColor(stroke);
+            g.setStroke(LINE);
+            g.draw(path);
+        }
+    }
+
+    @Override
+    public void text(double x, double y, String text, double size, Color color, Anchor anchor) {
+        Font font = g.getFont();
+        if(font.getSize2D() != (float) size) g.setFont(font.deriveFont((float) size));
+        double width = anchor == Anchor.START ? 0 : g.getFontMetrics().stringWidth(text);
+        g.setColor(color);
+        g.drawString(text, (float) (x - (anchor == Anchor.MIDDLE ? width / 2 : width)), (float) y);
+    }
+
+    @Override
+    public void close() throws IOException {
+        g.dispose();
+        ImageIO.write(image, "png", file);
+    }
+}
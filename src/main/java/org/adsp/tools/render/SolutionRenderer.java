@@ -0,0 +1,328 @@
+package org.adsp.tools.render;
+
+import org.adsp.datamodel.*;
+import org.adsp.tools.DataFiles;
+import org.adsp.tools.StepEnvelope;
+import org.adsp.tools.binary.BinaryWriter;
+import org.adsp.tools.render.Drawing.Anchor;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Headless renderer of a solution: draws the operations planning, the resources assignation, the balance profiles and
+ * the occupancy profiles of the locations, as in the visualisation, on a {@link Drawing} (svg or png) without JavaFX.
+ * The profiles are drawn at the level of detail of the drawing (see {@link StepEnvelope}).
+ */
+public class SolutionRenderer {
+    //Layout (in pixels):
+    public static final int WIDTH = 1600;
+    private static final double LEFT = 170; //Width of the row labels and value axis.
+    private static final double RIGHT = 20;
+    private static final double TITLE_HEIGHT = 40;
+    private static final double PANEL_TITLE_HEIGHT = 24;
+    private static final double AXIS_HEIGHT = 20;
+    private static final double GAP = 20;
+    private static final double PROFILE_HEIGHT = 120;
+    private static final double MAX_ROW_HEIGHT = 14;
+    private static final double MIN_ROW_HEIGHT = 2;
+    private static final double MIN_LABEL_HEIGHT = 8; //Row labels are only drawn if the rows are at least this high.
+    private static final double TICK_SPACING = 80;
+
+    //Colors of ganttchart.css:
+    private static final Color GREEN = new Color(0, 128, 0, 178);
+    private static final Color RED = new Color(128, 0, 0, 128);
+    private static final Color PROFILE = new Color(240, 145, 60, 128);
+    private static final Color PROFILE_STROKE = new Color(192, 116, 48);
+    private static final Color TEXT = new Color(210, 105, 30); //Chocolate.
+    private static final Color AXIS = Color.GRAY;
+
+    private final Solution solution;
+    private final Instance instance;
+    private final CompiledInstance compiled;
+    private final double horizon;
+    private final double scale; //Pixels per time unit.
+    private final double opRowHeight;
+    private final double resRowHeight;
+
+    public SolutionRenderer(Solution solution) {
+        this.solution = solution;
+        instance = solution.instance();
+        compiled = instance.compiled();
+        horizon = Math.max(1, solution.makespan());
+        scale = (WIDTH - LEFT - RIGHT) / horizon;
+        opRowHeight = rowHeight(compiled.nOperations());
+        resRowHeight = rowHeight(compiled.nResources());
+    }
+
+    private static double rowHeight(int nRows) {
+        return Math.max(MIN_ROW_HEIGHT, Math.min(MAX_ROW_HEIGHT, Math.floor(WIDTH / (double) Math.max(1, nRows))));
+    }
+
+    private int nProfiles() {
+        int n = 2;
+        for(Location loc : instance.locations()) if(!loc.name().isBlank()) n++;
+        return n;
+    }
+
+    public int width() {
+        return WIDTH;
+    }
+
+    public int height() {
+        double panels = 2 * (PANEL_TITLE_HEIGHT + AXIS_HEIGHT + GAP) + compiled.nOperations() * opRowHeight + compiled.nResources() * resRowHeight;
+        double profiles = nProfiles() * (PANEL_TITLE_HEIGHT + PROFILE_HEIGHT + AXIS_HEIGHT + GAP);
+        return (int) Math.ceil(TITLE_HEIGHT + panels + profiles);
+    }
+
+    /**
+     * writes the rendering to a svg or png file, depending on its extension
+     */
+    public void writeToFile(File file) throws IOException {
+        if(file.getParentFile() != null) file.getParentFile().mkdirs();
+        try(Drawing drawing = file.getName().endsWith(".png") ? new PngDrawing(file, width(), height()) : new SvgDrawing(file, width(), height())){
+            draw(drawing);
+        }
+    }
+
+    public void draw(Drawing drawing) {
+        drawing.text(LEFT, 26, instance.name() + " (makespan: " + solution.makespan() + ", cost: " + solution.cost() + ")", 18, Color.BLACK, Anchor.START);
+        double y = TITLE_HEIGHT;
+        y = drawOperations(drawing, y);
+        y = drawResources(drawing, y);
+        y = drawBalance(drawing, y);
+        drawOccupancy(drawing, y);
+    }
+
+    private double toX(double time) {
+        return LEFT + time * scale;
+    }
+
+    private double drawOperations(Drawing drawing, double y) {
+        int nOps = compiled.nOperations();
+        Activity[] activities = new Activity[nOps];
+        for(Activity act : solution.activities()) activities[act.operation()] = act;
+
+        //Rows sorted by start, starts and operations being packed in longs:
+        long[] keys = new long[nOps];
+        for(int op = 0; op < nOps; op++) keys[op] = (long) (activities[op] == null ? 0 : activities[op].start()) << 32 | op;
+        Arrays.sort(keys);
+
+        drawing.text(LEFT, y + 17, "Operations planning", 14, Color.BLACK, Anchor.START);
+        y += PANEL_TITLE_HEIGHT;
+        for(int pos = 0; pos < nOps; pos++){
+            int op = (int) keys[pos];
+            double rowY = y + pos * opRowHeight;
+            if(opRowHeight >= MIN_LABEL_HEIGHT) drawing.text(LEFT - 5, rowY + opRowHeight - 2, instance.operations()[op].card(), opRowHeight - 2, TEXT, Anchor.END);
+            Activity act = activities[op];
+            if(act != null) drawBlock(drawing, act.start(), act.end(), rowY, opRowHeight, GREEN);
+        }
+        y += nOps * opRowHeight;
+        drawTimeAxis(drawing, y);
+        return y + AXIS_HEIGHT + GAP;
+    }
+
+    private double drawResources(Drawing drawing, double y) {
+        int nRes = compiled.nResources();
+        drawing.text(LEFT, y + 17, "Resources assignation", 14, Color.BLACK, Anchor.START);
+        y += PANEL_TITLE_HEIGHT;
+        for(int res = 0; res < nRes; res++){
+            double rowY = y + res * resRowHeight;
+            if(resRowHeight >= MIN_LABEL_HEIGHT) drawing.text(LEFT - 5, rowY + resRowHeight - 2, instance.resources()[res].name(), resRowHeight - 2, TEXT, Anchor.END);
+            for(int u = 0; u < compiled.nUnavailable(res); u++){
+                if(compiled.unavailableStart(res, u) >= horizon) break;
+                drawBlock(drawing, compiled.unavailableStart(res, u), Math.min(horizon, compiled.unavailableEnd(res, u)), rowY, resRowHeight, RED);
+            }
+        }
+        for(Assignment assignment : solution.assignments()){
+            drawBlock(drawing, assignment.start(), assignment.end(), y + assignment.resource() * resRowHeight, resRowHeight, GREEN);
+        }
+        y += nRes * resRowHeight;
+        drawTimeAxis(drawing, y);
+        return y + AXIS_HEIGHT + GAP;
+    }
+
+    private void drawBlock(Drawing drawing, double start, double end, double rowY, double rowHeight, Color fill) {
+        double width = Math.max(1, (end - start) * scale);
+        drawing.rect(toX(start), rowY, width, rowHeight, fill, width >= 3 && rowHeight >= 4 ? Color.BLACK : null);
+    }
+
+    private double drawBalance(Drawing drawing, double y) {
+        //Masses added at the start of the operations, as in the visualisation:
+        List<Activity> af = new ArrayList<>();
+        List<Activity> lr = new ArrayList<>();
+        for(Activity act : solution.activities()){
+            int op = act.operation();
+            if(compiled.mass(op) > 0){
+                if(compiled.isAft(op) || compiled.isForward(op)) af.add(act);
+                else if(compiled.isLeft(op) || compiled.isRight(op)) lr.add(act);
+            }
+        }
+        y = drawBalance(drawing, y, "Balance Aft - Forward", af, instance.balanceAF(), true);
+        return drawBalance(drawing, y, "Balance Left - Right", lr, instance.balanceLR(), false);
+    }
+
+    private double drawBalance(Drawing drawing, double y, String title, List<Activity> activities, int limit, boolean aftForward) {
+        activities.sort(Comparator.comparingInt(Activity::start));
+        int n = activities.size() + 2;
+        int[] times = new int[n];
+        double[] values = new double[n];
+        double cumul = 0;
+        for(int i = 1; i < n - 1; i++){
+            int op = activities.get(i-1).operation();
+            boolean negative = aftForward ? compiled.isAft(op) : compiled.isLeft(op);
+            cumul += negative ? -compiled.mass(op) : compiled.mass(op);
+            times[i] = activities.get(i-1).start();
+            values[i] = cumul;
+        }
+        times[n-1] = solution.makespan();
+        values[n-1] = cumul;
+        return drawProfile(drawing, y, title, times, values, n, -limit, limit);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drawOccupancy(Drawing drawing, double y) {
+        //Steps grouped by location in a single pass, as {time, delta}:
+        int nLocs = compiled.nLocations();
+        List<int[]>[] steps = new List[nLocs];
+        for(int loc = 0; loc < nLocs; loc++) steps[loc] = new ArrayList<>();
+        for(Activity act : solution.activities()){
+            int op = act.operation();
+            steps[compiled.location(op)].add(new int[]{act.start(), compiled.occupancy(op)});
+            steps[compiled.location(op)].add(new int[]{act.end(), -compiled.occupancy(op)});
+        }
+        for(int loc = 0; loc < nLocs; loc++){
+            if(instance.locations()[loc].name().isBlank()) continue;
+            List<int[]> locSteps = steps[loc];
+            locSteps.sort(Comparator.comparingInt(s -> s[0]));
+            int n = locSteps.size() + 2;
+            int[] times = new int[n];
+            double[] values = new double[n];
+            double cumul = 0;
+            for(int i = 1; i < n - 1; i++){
+                cumul += locSteps.get(i-1)[1];
+                times[i] = locSteps.get(i-1)[0];
+                values[i] = cumul;
+            }
+            times[n-1] = solution.makespan();
+            values[n-1] = cumul;
+            y = drawProfile(drawing, y, "Occupancy of " + instance.locations()[loc].name(), times, values, n, 0, compiled.capacity(loc));
+        }
+    }
+
+    //Draws a cumulative function (value values[k] from times[k]) with its limits, the value range covering both.
+    private double drawProfile(Drawing drawing, double y, String title, int[] times, double[] values, int n, double lower, double upper) {
+        drawing.text(LEFT, y + 17, title, 14, Color.BLACK, Anchor.START);
+        y += PANEL_TITLE_HEIGHT;
+        double lowest = Math.min(0, lower);
+        double highest = upper + 1;
+        for(int k = 0; k < n; k++){
+            lowest = Math.min(lowest, values[k]);
+            highest = Math.max(highest, values[k]);
+        }
+        double top = y;
+        double min = lowest, max = highest;
+        DoubleUnaryOperator toY = v -> top + PROFILE_HEIGHT * (max - v) / (max - min);
+
+        StepEnvelope envelope = StepEnvelope.of(times, values, n, 0, horizon, (int) (WIDTH - LEFT - RIGHT), lower, upper);
+        double[] xs = new double[envelope.size() + 2];
+        double[] ys = new double[envelope.size() + 2];
+        double zeroY = toY.applyAsDouble(Math.max(min, Math.min(max, 0)));
+        xs[0] = toX(envelope.time(0));
+        ys[0] = zeroY;
+        for(int i = 0; i < envelope.size(); i++){
+            xs[i+1] = toX(envelope.time(i));
+            ys[i+1] = toY.applyAsDouble(envelope.value(i));
+        }
+        xs[xs.length - 1] = toX(Math.min(horizon, envelope.time(envelope.size() - 1)));
+        ys[ys.length - 1] = zeroY;
+        drawing.polygon(xs, ys, xs.length, PROFILE, PROFILE_STROKE);
+
+        //Limits and value axis:
+        drawing.line(LEFT, toY.applyAsDouble(upper), WIDTH - RIGHT, toY.applyAsDouble(upper), RED, 2, true);
+        drawing.line(LEFT, toY.applyAsDouble(lower), WIDTH - RIGHT, toY.applyAsDouble(lower), RED, 2, true);
+        drawing.line(LEFT, top, LEFT, top + PROFILE_HEIGHT, AXIS, 1, false);
+        drawing.text(LEFT - 5, toY.applyAsDouble(upper) + 4, String.valueOf((long) upper), 11, TEXT, Anchor.END);
+        drawing.text(LEFT - 5, toY.applyAsDouble(lower) + 4, String.valueOf((long) lower), 11, TEXT, Anchor.END);
+        y += PROFILE_HEIGHT;
+        drawTimeAxis(drawing, y);
+        return y + AXIS_HEIGHT + GAP;
+    }
+
+    private void drawTimeAxis(Drawing drawing, double y) {
+        drawing.line(LEFT, y, WIDTH - RIGHT, y, AXIS, 1, false);
+        double step = tickStep(TICK_SPACING / scale);
+        for(double t = 0; t <= horizon; t += step){
+            double x = toX(t);
+            drawing.line(x, y, x, y + 4, AXIS, 1, false);
+            drawing.text(x, y + 15, String.valueOf((long) t), 11, TEXT, Anchor.MIDDLE);
+        }
+    }
+
+    //Smallest step of the form 1, 2 or 5 times a power of 10 greater or equal to a minimum step.
+    private static double tickStep(double min) {
+        double power = Math.pow(10, Math.floor(Math.log10(Math.max(min, 1))));
+        for(double factor : new double[]{1, 2, 5, 10}) if(factor * power >= min) return factor * power;
+        return 10 * power;
+    }
+
+    /**
+     * Renders a solution file, or all the solution files of a folder and its sub-folders in parallel, keeping the
+     * structure of the folder.
+     * @param file solution file or folder (e.g. a results folder)
+     * @param out path of the rendered file (.svg or .png), or folder in which it is written with the name of the
+     *            solution file
+     * @param format format of the files written in a folder: svg or png
+     * @return true if all the solutions were rendered
+     */
+    public static boolean render(String file, String out, String format) {
+        System.setProperty("java.awt.headless", "true");
+        List<String[]> targets = new ArrayList<>(); //Solution file and rendered file.
+        collect(new File(file), out, format, targets);
+        long failed = targets.parallelStream().filter(target -> !renderFile(target[0], new File(target[1]))).count();
+        return failed == 0 && !targets.isEmpty();
+    }
+
+    private static void collect(File file, String out, String format, List<String[]> targets) {
+        File[] children = file.listFiles();
+        if(children != null){
+            Arrays.sort(children);
+            for(File child : children){
+                String name = child.getName();
+                if(child.isDirectory()) collect(child, out + "/" + name, format, targets);
+                else if((name.endsWith(".json") || name.endsWith(BinaryWriter.EXTENSION))
+                        && "solution".equals(DataFiles.contentType(child.getPath()))) collect(child, out, format, targets);
+            }
+            return;
+        }
+        if(out.endsWith(".svg") || out.endsWith(".png")){
+            targets.add(new String[]{file.getPath(), out});
+            return;
+        }
+        String name = file.getName();
+        if(name.contains(".")) name = name.substring(0, name.lastIndexOf('.'));
+        targets.add(new String[]{file.getPath(), new File(out, name + "." + format).getPath()});
+    }
+
+    private static boolean renderFile(String file, File target) {
+        Solution solution = DataFiles.readSolutionFile(file);
+        if(solution.instance().id().equals("error")) return false;
+        if(solution.activities().length == 0){
+            System.out.println("Warning: solution " + file + " is empty. Nothing to render");
+            return false;
+        }
+        try {
+            new SolutionRenderer(solution).writeToFile(target);
+            System.out.println("Rendered solution " + file + " to " + target);
+            return true;
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("Error: unable to render " + file + " to " + target);
+            e.printStackTrace();
+            return false;
+        }
+    }
+}
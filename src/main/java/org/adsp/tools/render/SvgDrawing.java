@@ -0,0 +1,103 @@
+package org.adsp.tools.render;
+
+import java.awt.Color;
+import java.io.*;
+
+/**
+ * Drawing streamed to an svg file: each shape is written as soon as it is drawn.
+ */
+public class SvgDrawing implements Drawing {
+    private final Writer writer;
+    private final StringBuilder buffer = new StringBuilder(256); //Element being written.
+
+    public SvgDrawing(File file, int width, int height) throws IOException {
+        writer = new BufferedWriter(new FileWriter(file), 1 << 16);
+        writer.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width + "\" height=\"" + height
+                + "\" viewBox=\"0 0 " + width + " " + height + "\" font-family=\"sans-serif\">\n");
+        writer.write("<rect width=\"100%\" height=\"100%\" fill=\"white\"/>\n");
+    }
+
+    @Override
+    public void rect(double x, double y, double width, double height, Color fill, Color stroke) {
+        buffer.setLength(0);
+        buffer.append("<rect x=\"").append(number(x)).append("\" y=\"").append(number(y))
+                .append("\" width=\"").append(number(width)).append("\" height=\"").append(number(height)).append('"');
+        paint(fill, stroke);
+        write(buffer.append("/>\n"));
+    }
+
+    @Override
+    public void line(double x1, double y1, double x2, double y2, Color color, double width, boolean dashed) {
+        buffer.setLength(0);
+        buffer.append("<line x1=\"").append(number(x1)).append("\" y1=\"").append(number(y1))
+                .append("\" x2=\"").append(number(x2)).append("\" y2=\"").append(number(y2)).append('"');
+        color("stroke", color);
+        buffer.append(" stroke-width=\"").append(number(width)).append('"');
+        if(dashed) buffer.append(" stroke-dasharray=\"8\"");
+        write(buffer.append("/>\n"));
+    }
+
+    @Override
+    public void polygon(double[] xs, double[] ys, int n, Color fill, Color stroke) {
+        buffer.setLength(0);
+        buffer.append("<polygon points=\"");
+        for(int i = 0; i < n; i++){
+            if(i > 0) buffer.append(' ');
+            buffer.append(number(xs[i])).append(',').append(number(ys[i]));
+        }
+        buffer.append('"');
+        paint(fill, stroke);
+        write(buffer.append("/>\n"));
+    }
+
+    @Override
+    public void text(double x, double y, String text, double size, Color color, Anchor anchor) {
+        buffer.setLength(0);
+        buffer.append("<text x=\"").append(number(x)).append("\" y=\"").append(number(y))
+                .append("\" font-size=\"").append(number(size)).append('"');
+        color("fill", color);
+        if(anchor != Anchor.START) buffer.append(" text-anchor=\"").append(anchor == Anchor.MIDDLE ? "middle" : "end").append('"');
+        buffer.append('>');
+        for(char c : text.toCharArray()){
+            switch (c) {
+                case '&' -> buffer.append("&amp;");
+                case '<' -> buffer.append("&lt;");
+                case '>' -> buffer.append("&gt;");
+                default -> buffer.append(c);
+            }
+        }
+        write(buffer.append("</text>\n"));
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.write("</svg>\n");
+        writer.close();
+    }
+
+    private void paint(Color fill, Color stroke) {
+        color("fill", fill);
+        if(stroke != null) color("stroke", stroke);
+    }
+
+    private void color(String attribute, Color color) {
+        buffer.append(' ').append(attribute).append("=\"rgb(").append(color.getRed()).append(',').append(color.getGreen())
+                .append(',').append(color.getBlue()).append(")\"");
+        if(color.getAlpha() < 255) buffer.append(' ').append(attribute).append("-opacity=\"").append(number(color.getAlpha() / 255.0)).append('"');
+    }
+
+    //Numbers are rounded to a tenth of pixel to keep the files small.
+    private static String number(double v) {
+        long tenths = Math.round(v * 10);
+        if(tenths % 10 == 0) return Long.toString(tenths / 10);
+        return (tenths < 0 ? "-" : "") + Math.abs(tenths) / 10 + "." + Math.abs(tenths) % 10;
+    }
+
+    private void write(CharSequence element) {
+        try {
+            writer.append(element);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.adsp.visu.charts;
+
+import java.util.List;
+
+/**
+ * Data API of the charts displaying blocks on rows over time, such as Gantt charts.
+ */
+public interface BlockChart {
+    void setTitle(String text);
+
+    /**
+     * set the rows of the chart, displayed in the given order, and removes all the blocks
+     * @param names names of the rows
+     */
+    void setRows(List<String> names);
+
+    /**
+     * set the display order of the rows
+     * @param order index of the row displayed at each position, from the top
+     */
+    void setRowOrder(int[] order);
+
+    /**
+     * add a block to a row
+     * @param styleClass style of the block (status-red, status-green, status-blue or status-gray)
+     * @param label label to display on block hovering
+     */
+    void addBlock(int row, double start, double length, String styleClass, String label);
+
+    /**
+     * remove all the blocks of a row
+     */
+    void clearRow(int row);
+
+    /**
+     * remove all the blocks but keeps the rows
+     */
+    void clearData();
+}
@@ -0,0 +1,148 @@
+package org.adsp.visu.charts;
+
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Tooltip;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+import javafx.scene.text.TextAlignment;
+
+import java.util.*;
+
+/**
+ * Gantt chart that draws the blocks and row labels in view on canvases instead of creating nodes. Blocks are drawn in
+ * batches of the same style, and tooltips are shown by hit-testing the block under the mouse.
+ * <p>
+ * The styles of the blocks are the ones of ganttchart.css.
+ */
+public class CanvasGanttChart extends VirtualGanttChart {
+    private static final Map<String, Color> STYLE_COLORS = Map.of(
+            "status-red", Color.rgb(128, 0, 0, 0.5),
+            "status-green", Color.rgb(0, 128, 0, 0.7),
+            "status-blue", Color.rgb(0, 0, 128, 0.7),
+            "status-gray", Color.rgb(128, 128, 128, 0.7)
+    );
+    private static final double MIN_STROKE_WIDTH = 3; //Blocks narrower than this (in pixels) have no border.
+
+    private final Canvas blocksCanvas = new Canvas();
+    private final Canvas labelsCanvas = new Canvas();
+    private final Tooltip tooltip = new Tooltip();
+    private final Map<String, double[]> batches = new HashMap<>(); //Rectangles of each style: x, width and y of each block.
+    private final Map<String, Integer> batchSizes = new HashMap<>();
+    private Block hovered;
+
+    public CanvasGanttChart() {
+        blocksCanvas.setManaged(false);
+        labelsCanvas.setManaged(false);
+        getPlot().getChildren().add(blocksCanvas);
+        getHeader().getChildren().add(labelsCanvas);
+        getPlot().addEventHandler(MouseEvent.MOUSE_MOVED, this::handleHover);
+        getPlot().addEventHandler(MouseEvent.MOUSE_EXITED, event -> hideTooltip());
+        getPlot().addEventHandler(MouseEvent.MOUSE_PRESSED, event -> hideTooltip());
+    }
+
+    @Override
+    public void setStylesheet(String stylesheet) {
+        //Styles are drawn with the colors of ganttchart.css.
+    }
+
+    @Override
+    protected void render(int firstPos, int lastPos, double timeStart, double timeEnd) {
+        double width = getPlot().getWidth();
+        double height = getPlot().getHeight();
+        blocksCanvas.setWidth(width);
+        blocksCanvas.setHeight(height);
+        labelsCanvas.setWidth(HEADER_WIDTH);
+        labelsCanvas.setHeight(height);
+        GraphicsContext gc = blocksCanvas.getGraphicsContext2D();
+        GraphicsContext labels = labelsCanvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, width, height);
+        labels.clearRect(0, 0, HEADER_WIDTH, height);
+        labels.setFill(Color.CHOCOLATE);
+        labels.setTextAlign(TextAlignment.RIGHT);
+        labels.setTextBaseline(VPos.CENTER);
+
+        //Collecting the blocks in view by style:
+        batchSizes.clear();
+        double blockHeight = getBlockHeight();
+        double offset = (getRowHeight() - blockHeight) / 2;
+        for(int pos = firstPos; pos <= lastPos; pos++){
+            int row = rowAt(pos);
+            double rowY = toY(pos);
+            labels.fillText(rowName(row), HEADER_WIDTH - 5, rowY + getRowHeight() / 2);
+
+            List<Block> rowBlocks = getBlocks(row);
+            for(int b = firstVisibleBlock(row, timeStart); b < rowBlocks.size(); b++){
+                Block block = rowBlocks.get(b);
+                if(block.start() > timeEnd) break;
+                if(block.start() + block.length() < timeStart) continue;
+                addToBatch(block.styleClass(), toX(block.start()), Math.max(1, block.length() * getScale()), rowY + offset);
+            }
+        }
+
+        //Drawing each batch with a single fill and stroke setting:
+        gc.setStroke(Color.BLACK);
+        gc.setLineWidth(1);
+        for(Map.Entry<String, Integer> batch : batchSizes.entrySet()){
+            double[] rects = batches.get(batch.getKey());
+            int size = batch.getValue();
+            gc.setFill(STYLE_COLORS.getOrDefault(batch.getKey(), Color.GRAY));
+            for(int k = 0; k < size; k += 3) gc.fillRect(rects[k], rects[k+2], rects[k+1], blockHeight);
+            for(int k = 0; k < size; k += 3) if(rects[k+1] >= MIN_STROKE_WIDTH) gc.strokeRect(rects[k] + 0.5, rects[k+2] + 0.5, rects[k+1] - 1, blockHeight - 1);
+        }
+    }
+
+    private void addToBatch(String style, double x, double width, double y) {
+        int size = batchSizes.getOrDefault(style, 0);
+        double[] rects = batches.get(style);
+        if(rects == null || rects.length < size + 3){
+            rects = rects == null ? new double[192] : Arrays.copyOf(rects, rects.length * 2);
+            batches.put(style, rects);
+        }
+        rects[size] = x;
+        rects[size+1] = width;
+        rects[size+2] = y;
+        batchSizes.put(style, size + 3);
+    }
+
+    //Shows the label of the block under the mouse, if any.
+    private void handleHover(MouseEvent event) {
+        Block block = blockAt(event.getX(), event.getY());
+        if(block == null || block.label().isBlank()){
+            hideTooltip();
+            return;
+        }
+        if(block != hovered){
+            hovered = block;
+            tooltip.setText(block.label());
+        }
+        tooltip.show(getPlot(), event.getScreenX() + 10, event.getScreenY() + 10);
+    }
+
+    private void hideTooltip() {
+        hovered = null;
+        tooltip.hide();
+    }
+
+    /**
+     * @return the block at a point of the plot, null if none
+     */
+    public Block blockAt(double x, double y) {
+        int pos = toPosition(y);
+        if(pos < 0 || pos >= nRows()) return null;
+        double offset = y - toY(pos) - (getRowHeight() - getBlockHeight()) / 2;
+        if(offset < 0 || offset > getBlockHeight()) return null;
+        int row = rowAt(pos);
+        double time = toTime(x);
+        double tolerance = 0.5 / getScale(); //Blocks are at least one pixel wide.
+        List<Block> rowBlocks = getBlocks(row);
+        Block hit = null;
+        for(int b = firstVisibleBlock(row, time - tolerance); b < rowBlocks.size(); b++){
+            Block block = rowBlocks.get(b);
+            if(block.start() > time + tolerance) break;
+            if(block.start() + block.length() >= time - tolerance) hit = block; //The latest starting block if several overlap.
+        }
+        return hit;
+    }
+}
@@ -0,0 +1,283 @@
+package org.adsp.visu.charts;
+
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Label;
+import javafx.scene.control.Tooltip;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.TextAlignment;
+import org.adsp.tools.StepEnvelope;
+import org.adsp.tools.Steps;
+
+import java.util.*;
+
+/**
+ * Chart for drawing cumulative functions such as balance or occupancy profiles directly on a canvas. Each function is
+ * drawn as a single path, at the level of detail of the zoom (see {@link StepEnvelope}), and tooltips are shown by
+ * hit-testing the step under the mouse.
+ * <p>
+ * ctrl + mouse wheel zooms on the time, alt + mouse wheel zooms on the values and dragging pans the time.
+ */
+public class CanvasProfileChart extends Region implements StepChart {
+    private static final double ZOOM_FACTOR = 1.2;
+    private static final double TITLE_HEIGHT = 30;
+    private static final double AXIS_WIDTH = 50;
+    private static final double AXIS_HEIGHT = 20;
+    private static final double TICK_SPACING = 80; //Minimum space between two ticks of the time axis (in pixels).
+    private static final double HIT_DISTANCE = 5; //Maximum distance (in pixels) between the mouse and a hovered step.
+    private static final Color[] COLORS = {
+            Color.rgb(240, 145, 60, 0.5), Color.rgb(60, 120, 200, 0.5), Color.rgb(90, 170, 90, 0.5), Color.rgb(200, 70, 70, 0.5)
+    };
+
+    private final Map<String, Steps> categoryCurves = new LinkedHashMap<>();
+    private final Label title = new Label();
+    private final Canvas canvas = new Canvas();
+    private final Tooltip tooltip = new Tooltip();
+    private double maxValue;
+    private double minValue;
+    private double lowerLimit = Double.NEGATIVE_INFINITY;
+    private double upperLimit = Double.POSITIVE_INFINITY;
+    private double timeStart = 0;
+    private double timeEnd = -1; //Negative while the time range follows the data.
+    private double viewStart, viewScale; //Time range in view, updated before drawing or hit-testing.
+    private double dragX;
+
+    public CanvasProfileChart(double maxValue, double minValue) {
+        this.maxValue = maxValue;
+        this.minValue = minValue;
+        title.setStyle("-fx-font-size: 1.4em;");
+        getChildren().addAll(title, canvas);
+
+        setPrefSize(500, 400);
+        setFocusTraversable(true);
+        canvas.addEventHandler(MouseEvent.MOUSE_MOVED, this::handleHover);
+        canvas.addEventHandler(MouseEvent.MOUSE_EXITED, event -> tooltip.hide());
+        canvas.addEventHandler(MouseEvent.MOUSE_PRESSED, event -> {
+            tooltip.hide();
+            dragX = event.getX();
+        });
+        canvas.addEventHandler(MouseEvent.MOUSE_DRAGGED, event -> {
+            fixTimeRange();
+            updateView();
+            double shift = (dragX - event.getX()) / viewScale;
+            timeStart += shift;
+            timeEnd += shift;
+            dragX = event.getX();
+            draw();
+        });
+        setOnScroll(this::handleScroll);
+    }
+
+    public CanvasProfileChart(double maxValue) {
+        this(maxValue, 0);
+    }
+
+    @Override
+    public void setTitle(String text) {
+        title.setText(text);
+    }
+
+    public void setMaxValue(double maxValue) {
+        this.maxValue = maxValue;
+        requestLayout();
+    }
+
+    public void setMinValue(double minValue) {
+        this.minValue = minValue;
+        requestLayout();
+    }
+
+    @Override
+    public void setLimits(double lowerLimit, double upperLimit) {
+        this.lowerLimit = lowerLimit;
+        this.upperLimit = upperLimit;
+        requestLayout();
+    }
+
+    @Override
+    public void clearData() {
+        for(Steps steps : categoryCurves.values()) steps.clear();
+        requestLayout();
+    }
+
+    @Override
+    public void addSteps(String description, int[] nodes, double[] values, String[] labels) {
+        assert (nodes.length == values.length);
+        Steps steps = categoryCurves.computeIfAbsent(description, d -> new Steps());
+        steps.addCumulated(nodes, values, labels);
+        requestLayout(); //Drawn once at the next layout.
+    }
+
+    @Override
+    protected void layoutChildren() {
+        title.resizeRelocate(0, 0, getWidth(), TITLE_HEIGHT);
+        canvas.relocate(0, TITLE_HEIGHT);
+        canvas.setWidth(Math.max(0, getWidth()));
+        canvas.setHeight(Math.max(0, getHeight() - TITLE_HEIGHT));
+        draw();
+    }
+
+    //Time range in view:
+
+    private double viewStart() {
+        if(timeEnd >= 0) return timeStart;
+        int min = Integer.MAX_VALUE;
+        for(Steps steps : categoryCurves.values()) if(steps.size() > 0) min = Math.min(min, steps.time(0));
+        return min == Integer.MAX_VALUE ? 0 : min;
+    }
+
+    private double viewEnd() {
+        if(timeEnd >= 0) return timeEnd;
+        int max = Integer.MIN_VALUE;
+        for(Steps steps : categoryCurves.values()) if(steps.size() > 0) max = Math.max(max, steps.time(steps.size() - 1));
+        return max == Integer.MIN_VALUE ? 1 : Math.max(max, viewStart() + 1);
+    }
+
+    //Stops following the data once the view is zoomed or panned.
+    private void fixTimeRange() {
+        if(timeEnd < 0){
+            timeStart = viewStart();
+            timeEnd = viewEnd();
+        }
+    }
+
+    private double plotWidth() {
+        return Math.max(1, canvas.getWidth() - AXIS_WIDTH);
+    }
+
+    private double plotHeight() {
+        return Math.max(1, canvas.getHeight() - AXIS_HEIGHT);
+    }
+
+    private void updateView() {
+        viewStart = viewStart();
+        viewScale = plotWidth() / (viewEnd() - viewStart);
+    }
+
+    private double toX(double time) {
+        return AXIS_WIDTH + (time - viewStart) * viewScale;
+    }
+
+    private double toTime(double x) {
+        return viewStart + (x - AXIS_WIDTH) / viewScale;
+    }
+
+    private double toY(double value) {
+        return plotHeight() * (maxValue - value) / (maxValue - minValue);
+    }
+
+    private void draw() {
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, width, height);
+        if(width <= AXIS_WIDTH || height <= AXIS_HEIGHT) return;
+        updateView();
+        double start = viewStart;
+        double end = viewEnd();
+
+        //Curves, each drawn as one path clipped to the plot:
+        gc.save();
+        gc.beginPath();
+        gc.rect(AXIS_WIDTH, 0, plotWidth(), plotHeight());
+        gc.clip();
+        double zeroY = toY(Math.max(minValue, Math.min(maxValue, 0)));
+        int c = 0;
+        for(Steps steps : categoryCurves.values()){
+            if(steps.size() == 0) continue;
+            StepEnvelope envelope = StepEnvelope.of(steps.times(), steps.values(), steps.size(), start, end, (int) plotWidth(), lowerLimit, upperLimit);
+            gc.beginPath();
+            gc.moveTo(toX(envelope.time(0)), zeroY);
+            for(int k = 0; k < envelope.size(); k++) gc.lineTo(toX(envelope.time(k)), toY(envelope.value(k)));
+            gc.lineTo(toX(Math.min(end, envelope.time(envelope.size() - 1))), zeroY);
+            gc.closePath();
+            Color color = COLORS[c++ % COLORS.length];
+            gc.setFill(color);
+            gc.fill();
+            gc.setStroke(color.deriveColor(0, 1, 0.8, 2));
+            gc.stroke();
+        }
+
+        //Limits of the values:
+        gc.setStroke(Color.rgb(128, 0, 0, 0.5));
+        gc.setLineWidth(2);
+        gc.setLineDashes(8);
+        if(Double.isFinite(upperLimit)) gc.strokeLine(AXIS_WIDTH, toY(upperLimit), width, toY(upperLimit));
+        if(Double.isFinite(lowerLimit)) gc.strokeLine(AXIS_WIDTH, toY(lowerLimit), width, toY(lowerLimit));
+        gc.restore();
+
+        //Axes:
+        gc.setStroke(Color.GRAY);
+        gc.setLineWidth(1);
+        gc.setFill(Color.CHOCOLATE);
+        gc.strokeLine(AXIS_WIDTH - 0.5, 0, AXIS_WIDTH - 0.5, plotHeight());
+        gc.strokeLine(AXIS_WIDTH, plotHeight() + 0.5, width, plotHeight() + 0.5);
+        gc.setTextAlign(TextAlignment.RIGHT);
+        gc.setTextBaseline(VPos.CENTER);
+        double valueStep = tickStep((maxValue - minValue) / 5);
+        for(double v = Math.ceil(minValue / valueStep) * valueStep; v <= maxValue; v += valueStep){
+            gc.fillText(String.valueOf((long) v), AXIS_WIDTH - 5, Math.max(6, Math.min(plotHeight() - 6, toY(v))));
+        }
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.TOP);
+        double timeStep = tickStep(TICK_SPACING / viewScale);
+        for(double t = Math.ceil(start / timeStep) * timeStep; t <= end; t += timeStep){
+            double x = toX(t);
+            gc.strokeLine(x, plotHeight(), x, plotHeight() + 4);
+            gc.fillText(String.valueOf((long) t), x, plotHeight() + 5);
+        }
+    }
+
+    //Smallest step of the form 1, 2 or 5 times a power of 10 greater or equal to a minimum step.
+    private static double tickStep(double min) {
+        double power = Math.pow(10, Math.floor(Math.log10(Math.max(min, 1))));
+        for(double factor : new double[]{1, 2, 5, 10}) if(factor * power >= min) return factor * power;
+        return 10 * power;
+    }
+
+    //Shows the label and value of the closest step under the mouse, if any.
+    private void handleHover(MouseEvent event) {
+        updateView();
+        double time = toTime(event.getX());
+        double tolerance = HIT_DISTANCE / viewScale;
+        String text = null;
+        double distance = Double.MAX_VALUE;
+        for(Steps steps : categoryCurves.values()){
+            int k = steps.lastUntil(time + tolerance);
+            if(k < 0 || time - steps.time(k) > tolerance) continue;
+            double d = Math.abs(steps.time(k) - time) + Math.abs(toY(steps.value(k)) - event.getY()) / viewScale;
+            if(d < distance && !steps.label(k).isBlank()){
+                distance = d;
+                text = steps.label(k) + "\nValue: " + steps.value(k);
+            }
+        }
+        if(text == null){
+            tooltip.hide();
+            return;
+        }
+        if(!text.equals(tooltip.getText())) tooltip.setText(text);
+        tooltip.show(canvas, event.getScreenX() + 10, event.getScreenY() + 10);
+    }
+
+    private void handleScroll(ScrollEvent event) {
+        double deltaY = event.getDeltaY();
+        if(deltaY == 0) return;
+        double scaleFactor = (deltaY > 0) ? ZOOM_FACTOR : 1 / ZOOM_FACTOR;
+        if(event.isControlDown()){
+            fixTimeRange();
+            updateView();
+            double time = toTime(event.getX()); //Time under the mouse, kept in place by the zoom.
+            timeStart = time - (time - timeStart) / scaleFactor;
+            timeEnd = time + (timeEnd - time) / scaleFactor;
+        } else if(event.isAltDown()){
+            minValue *= scaleFactor;
+            maxValue *= scaleFactor;
+        } else return;
+        draw();
+        event.consume();
+    }
+}
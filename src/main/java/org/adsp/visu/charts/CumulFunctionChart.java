@@ -6,19 +6,31 @@ import javafx.scene.control.Tooltip;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.ScrollEvent;
 import javafx.util.Duration;
+import org.adsp.tools.StepEnvelope;
+import org.adsp.tools.Steps;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 /**
  * chart for drawing a cumulative function such as a maximum load profile.
+ * <p>
+ * The steps added with addSteps are kept and only their level of detail for the current zoom is displayed: steps that
+ * fall in the same pixel are replaced by their min/max envelope (see {@link StepEnvelope}), except those reaching a
+ * value out of the limits of the function, which are always displayed exactly.
  */
-public class CumulFunctionChart extends StackedAreaChart<Number,Number> {
+public class CumulFunctionChart extends StackedAreaChart<Number,Number> implements StepChart {
     private static final double ZOOM_FACTOR = 1.2;
+    private static final int MIN_BUCKETS = 500; //Number of pixel buckets used before the chart is laid out.
     private boolean ctrlPressed = false;
     private boolean altPressed = false;
 
     private String selectedKey;
     private HashMap<String, Series<Number, Number>> categoryCurves; // set of {description, Series} for the curve
+    private final HashMap<String, Steps> categorySteps = new HashMap<>(); // set of {description, Steps} added with addSteps
+    private double lowerLimit = Double.NEGATIVE_INFINITY;
+    private double upperLimit = Double.POSITIVE_INFINITY;
 
     public CumulFunctionChart(Axis<Number> xAxis, Axis<Number> yAxis, double maxValue, double minValue) {
         super(xAxis, yAxis);
@@ -64,6 +76,21 @@ public class CumulFunctionChart extends StackedAreaChart<Number,Number> {
 
         // Add scroll event handler for zooming
         setOnScroll(this::handleScroll);
+
+        // Update the level of detail when the chart is resized
+        widthProperty().addListener((obs, oldWidth, newWidth) -> refreshSteps());
+    }
+
+    /**
+     * set the limits of the values of the functions, the steps out of the limits being always displayed exactly
+     * @param lowerLimit minimum value allowed
+     * @param upperLimit maximum value allowed
+     */
+    @Override
+    public void setLimits(double lowerLimit, double upperLimit) {
+        this.lowerLimit = lowerLimit;
+        this.upperLimit = upperLimit;
+        refreshSteps();
     }
 
     /**
@@ -107,6 +134,7 @@ public class CumulFunctionChart extends StackedAreaChart<Number,Number> {
      */
     public void clearData() {
         for(Series<Number, Number> series: categoryCurves.values()) series.getData().clear();
+        for(Steps steps: categorySteps.values()) steps.clear();
     }
 
     /**
@@ -193,38 +221,44 @@ public class CumulFunctionChart extends StackedAreaChart<Number,Number> {
     public void addSteps(String description, int[] nodes, double[] values, String[] labels) {
         assert (nodes.length == values.length);
         createSeriesIfNotExist(description);
-        ObservableList data = categoryCurves.get(description).getData();
-        double predCumul = 0.;
-        if (data.size() > 0) {
-            predCumul = ((Number) ((Data) data.get(data.size() - 1)).getYValue()).doubleValue();
-            data.add(new Data(nodes[0], predCumul));
-            if(!labels[0].isBlank()){
-                Tooltip tooltip = new Tooltip(labels[0]);
-                tooltip.setShowDelay(new Duration(0));
-                Tooltip.install(((Data) data.get(data.size()-1)).getNode(), tooltip);
-            }
-        }
-        data.add(new Data(nodes[0], predCumul + values[0]));
-        if(!labels[0].isBlank()){
-            Tooltip tooltip = new Tooltip(labels[0]);
-            tooltip.setShowDelay(new Duration(0));
-            Tooltip.install(((Data) data.get(data.size()-1)).getNode(), tooltip);
+        Steps steps = categorySteps.computeIfAbsent(description, d -> new Steps());
+        steps.addCumulated(nodes, values, labels);
+        refreshSteps(description);
+    }
+
+    /**
+     * update the displayed level of detail of the steps of all the descriptions
+     */
+    public void refreshSteps() {
+        for(String description: categorySteps.keySet()) refreshSteps(description);
+    }
+
+    //Replaces the data of a series by the level of detail of its steps for the time range and width of the chart.
+    private void refreshSteps(String description) {
+        Steps steps = categorySteps.get(description);
+        if (steps == null) return;
+        ObservableList<Data<Number, Number>> data = categoryCurves.get(description).getData();
+        if (steps.size() == 0) {
+            data.clear();
+            return;
         }
-        predCumul += values[0];
-        for (int i = 1; i < nodes.length ; ++i) {
-            data.add(new Data(nodes[i], predCumul));
-            if(!labels[i].isBlank()){
-                Tooltip tooltip = new Tooltip(labels[i]);
-                tooltip.setShowDelay(new Duration(0));
-                Tooltip.install(((Data) data.get(data.size() - 1)).getNode(), tooltip);
-            }
-            data.add(new Data(nodes[i], predCumul + values[i]));
-            if(!labels[i].isBlank()){
-                Tooltip tooltip = new Tooltip(labels[i]);
+        NumberAxis xAxis = (NumberAxis) getXAxis();
+        double from = xAxis.isAutoRanging() ? steps.time(0) : xAxis.getLowerBound();
+        double to = xAxis.isAutoRanging() ? steps.time(steps.size() - 1) : xAxis.getUpperBound();
+        double width = xAxis.getWidth() > 0 ? xAxis.getWidth() : getWidth();
+        int buckets = (int) Math.max(MIN_BUCKETS, width);
+        StepEnvelope envelope = StepEnvelope.of(steps.times(), steps.values(), steps.size(), from, Math.max(to, from + 1), buckets, lowerLimit, upperLimit);
+
+        List<Data<Number, Number>> points = new ArrayList<>(envelope.size());
+        for (int i = 0; i < envelope.size(); ++i) points.add(new Data<>(envelope.time(i), envelope.value(i)));
+        data.setAll(points);
+        for (int i = 0; i < envelope.size(); ++i) {
+            int step = envelope.step(i);
+            if (step >= 0 && !steps.label(step).isBlank() && points.get(i).getNode() != null) {
+                Tooltip tooltip = new Tooltip(steps.label(step));
                 tooltip.setShowDelay(new Duration(0));
-                Tooltip.install(((Data) data.get(data.size() - 1)).getNode(), tooltip);
+                Tooltip.install(points.get(i).getNode(), tooltip);
             }
-            predCumul += values[i];
         }
     }
 
@@ -295,6 +329,7 @@ public class CumulFunctionChart extends StackedAreaChart<Number,Number> {
             // Adjust the axis ranges based on the scroll direction
             xAxis.setLowerBound(xAxis.getLowerBound() * 1/scaleFactor);
             xAxis.setUpperBound(xAxis.getUpperBound() * 1/scaleFactor);
+            refreshSteps();
 
             event.consume();
         } else if (altPressed) {
@@ -0,0 +1,29 @@
+package org.adsp.visu.charts;
+
+/**
+ * Data API of the charts displaying cumulative step functions, such as balance or occupancy profiles.
+ */
+public interface StepChart {
+    void setTitle(String text);
+
+    /**
+     * set the limits of the values of the functions, the steps out of the limits being always displayed exactly
+     * @param lowerLimit minimum value allowed
+     * @param upperLimit maximum value allowed
+     */
+    void setLimits(double lowerLimit, double upperLimit);
+
+    /**
+     * clear the values but keeps the categories
+     */
+    void clearData();
+
+    /**
+     * add the nodes and their values to the cumul function of the current description
+     * @param description description whose cumul value will be set
+     * @param nodes last node currently processed in the description
+     * @param values value of the nodes (not cumulated)
+     * @param labels labels to display on node hovering
+     */
+    void addSteps(String description, int[] nodes, double[] values, String[] labels);
+}
@@ -0,0 +1,432 @@
+package org.adsp.visu.charts;
+
+import javafx.geometry.Orientation;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.Tooltip;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.TextAlignment;
+import javafx.util.Duration;
+
+import java.util.*;
+
+/**
+ * Gantt chart that only creates nodes for the blocks and rows in view. The chart holds the blocks of each row and a
+ * display order of the rows. When the view is scrolled or zoomed, the nodes of the blocks and row labels are taken from
+ * pools and recycled instead of being created, so that the number of nodes depends on the size of the view and not on
+ * the number of blocks.
+ * <p>
+ * The chart scrolls by itself and must not be put in a scroll pane: the mouse wheel scrolls the rows (the time with
+ * shift), ctrl + mouse wheel zooms on the time and dragging pans the view.
+ */
+public class VirtualGanttChart extends Region implements BlockChart {
+    private static final double ZOOM_FACTOR = 1.2;
+    private static final double MAX_SCALE = 100; //Maximum number of pixels per time unit.
+    protected static final double HEADER_WIDTH = 150; //Width of the row labels.
+    private static final double TITLE_HEIGHT = 30;
+    private static final double AXIS_HEIGHT = 25;
+    private static final double TICK_SPACING = 80; //Minimum space between two ticks of the time axis (in pixels).
+
+    /**
+     * Block of a row.
+     */
+    public record Block(double start, double length, String styleClass, String label) {}
+
+    //Data:
+    private String[] rowNames = new String[0];
+    private int[] order = new int[0]; //Row displayed at each position.
+    @SuppressWarnings("unchecked")
+    private List<Block>[] blocks = new List[0]; //Blocks of each row.
+    private boolean[] sorted = new boolean[0]; //Whether the blocks of each row are sorted by start.
+    private double[] maxLengths = new double[0]; //Length of the longest block of each row.
+    private double horizon = 1;
+
+    //View:
+    private double scale = 1; //Pixels per time unit.
+    private double rowHeight = 20;
+    private double blockHeight = 20;
+
+    //Nodes:
+    private final Label title = new Label();
+    private final Canvas axis = new Canvas();
+    private final Pane header = new Pane();
+    private final Pane plot = new Pane();
+    private final ScrollBar hBar = new ScrollBar();
+    private final ScrollBar vBar = new ScrollBar();
+    private final Rectangle headerClip = new Rectangle();
+    private final Rectangle plotClip = new Rectangle();
+    private final List<StackPane> blockPool = new ArrayList<>();
+    private final List<Label> labelPool = new ArrayList<>();
+    private double dragX, dragY;
+
+    public VirtualGanttChart() {
+        getStyleClass().add("virtual-gantt-chart");
+        title.setStyle("-fx-font-size: 1.4em;");
+        vBar.setOrientation(Orientation.VERTICAL);
+        header.setClip(headerClip);
+        plot.setClip(plotClip);
+        getChildren().addAll(title, axis, header, plot, hBar, vBar);
+
+        hBar.valueProperty().addListener((obs, oldValue, newValue) -> requestLayout());
+        vBar.valueProperty().addListener((obs, oldValue, newValue) -> requestLayout());
+        addEventHandler(ScrollEvent.SCROLL, this::handleScroll);
+        plot.addEventHandler(MouseEvent.MOUSE_PRESSED, event -> {
+            dragX = event.getX();
+            dragY = event.getY();
+        });
+        plot.addEventHandler(MouseEvent.MOUSE_DRAGGED, event -> {
+            hBar.setValue(clamp(hBar.getValue() - (event.getX() - dragX), hBar.getMin(), hBar.getMax()));
+            vBar.setValue(clamp(vBar.getValue() - (event.getY() - dragY), vBar.getMin(), vBar.getMax()));
+            dragX = event.getX();
+            dragY = event.getY();
+        });
+    }
+
+    @Override
+    public void setTitle(String text) {
+        title.setText(text);
+    }
+
+    /**
+     * set the css file that will be used to provide the layout for the blocks
+     * @param stylesheet name of the css file (with extension) in the package of the chart
+     */
+    public void setStylesheet(String stylesheet) {
+        getStylesheets().add(VirtualGanttChart.class.getResource(stylesheet).toExternalForm());
+    }
+
+    public void setRowHeight(double rowHeight) {
+        this.rowHeight = rowHeight;
+        requestLayout();
+    }
+
+    public void setBlockHeight(double blockHeight) {
+        this.blockHeight = blockHeight;
+        requestLayout();
+    }
+
+    /**
+     * set the time range displayed when the chart is fully zoomed out
+     */
+    public void setHorizon(double horizon) {
+        this.horizon = Math.max(horizon, 1);
+        requestLayout();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void setRows(List<String> names) {
+        int n = names.size();
+        rowNames = names.toArray(new String[0]);
+        order = new int[n];
+        for(int i = 0; i < n; i++) order[i] = i;
+        blocks = new List[n];
+        for(int i = 0; i < n; i++) blocks[i] = new ArrayList<>();
+        sorted = new boolean[n];
+        Arrays.fill(sorted, true);
+        maxLengths = new double[n];
+        requestLayout();
+    }
+
+    public int nRows() {
+        return rowNames.length;
+    }
+
+    @Override
+    public void setRowOrder(int[] order) {
+        this.order = order.clone();
+        requestLayout();
+    }
+
+    @Override
+    public void addBlock(int row, double start, double length, String styleClass, String label) {
+        List<Block> rowBlocks = blocks[row];
+        if(!rowBlocks.isEmpty() && rowBlocks.get(rowBlocks.size() - 1).start() > start) sorted[row] = false;
+        rowBlocks.add(new Block(start, length, styleClass, label == null ? "" : label));
+        maxLengths[row] = Math.max(maxLengths[row], length);
+        requestLayout();
+    }
+
+    @Override
+    public void clearRow(int row) {
+        blocks[row].clear();
+        sorted[row] = true;
+        maxLengths[row] = 0;
+        requestLayout();
+    }
+
+    @Override
+    public void clearData() {
+        for(int row = 0; row < blocks.length; row++) clearRow(row);
+    }
+
+    /**
+     * @return the blocks of a row, sorted by start
+     */
+    public List<Block> getBlocks(int row) {
+        sortRow(row);
+        return Collections.unmodifiableList(blocks[row]);
+    }
+
+    private void sortRow(int row) {
+        if(!sorted[row]){
+            blocks[row].sort(Comparator.comparingDouble(Block::start));
+            sorted[row] = true;
+        }
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double width = getWidth();
+        double height = getHeight();
+        double barWidth = vBar.prefWidth(-1);
+        double barHeight = hBar.prefHeight(-1);
+        double plotX = HEADER_WIDTH;
+        double plotY = TITLE_HEIGHT + AXIS_HEIGHT;
+        double plotWidth = Math.max(0, width - plotX - barWidth);
+        double plotHeight = Math.max(0, height - plotY - barHeight);
+
+        title.resizeRelocate(0, 0, width, TITLE_HEIGHT);
+        header.resizeRelocate(0, plotY, HEADER_WIDTH, plotHeight);
+        headerClip.setWidth(HEADER_WIDTH);
+        headerClip.setHeight(plotHeight);
+        plot.resizeRelocate(plotX, plotY, plotWidth, plotHeight);
+        plotClip.setWidth(plotWidth);
+        plotClip.setHeight(plotHeight);
+        hBar.resizeRelocate(plotX, plotY + plotHeight, plotWidth, barHeight);
+        vBar.resizeRelocate(plotX + plotWidth, plotY, barWidth, plotHeight);
+
+        //Scroll ranges (in pixels):
+        hBar.setMax(Math.max(0, horizon * scale - plotWidth));
+        hBar.setVisibleAmount(plotWidth);
+        hBar.setUnitIncrement(rowHeight);
+        hBar.setBlockIncrement(plotWidth);
+        vBar.setMax(Math.max(0, order.length * rowHeight - plotHeight));
+        vBar.setVisibleAmount(plotHeight);
+        vBar.setUnitIncrement(rowHeight);
+        vBar.setBlockIncrement(plotHeight);
+        if(hBar.getValue() > hBar.getMax()) hBar.setValue(hBar.getMax());
+        if(vBar.getValue() > vBar.getMax()) vBar.setValue(vBar.getMax());
+
+        double timeStart = toTime(0);
+        double timeEnd = toTime(plotWidth);
+        int firstPos = Math.max(0, toPosition(0));
+        int lastPos = Math.min(order.length - 1, toPosition(plotHeight));
+        render(firstPos, lastPos, timeStart, timeEnd);
+
+        drawAxis(plotX, plotWidth, width, timeStart);
+    }
+
+    /**
+     * renders the blocks and row labels in view, using pooled nodes
+     * @param firstPos first position of the rows in view
+     * @param lastPos last position of the rows in view (included)
+     * @param timeStart start of the time range in view
+     * @param timeEnd end of the time range in view
+     */
+    protected void render(int firstPos, int lastPos, double timeStart, double timeEnd) {
+        int usedBlocks = 0;
+        int usedLabels = 0;
+        for(int pos = firstPos; pos <= lastPos; pos++){
+            int row = order[pos];
+            double rowY = toY(pos);
+
+            Label label = labelAt(usedLabels++);
+            label.setText(rowNames[row]);
+            label.resizeRelocate(0, rowY, HEADER_WIDTH - 5, rowHeight);
+
+            //Blocks of the row intersecting the time range:
+            List<Block> rowBlocks = getBlocks(row);
+            for(int b = firstVisibleBlock(row, timeStart); b < rowBlocks.size(); b++){
+                Block block = rowBlocks.get(b);
+                if(block.start() > timeEnd) break;
+                if(block.start() + block.length() < timeStart) continue;
+                StackPane node = blockAt(usedBlocks++);
+                if(!node.getStyleClass().equals(List.of(block.styleClass()))) node.getStyleClass().setAll(block.styleClass());
+                setTooltip(node, block.label());
+                node.resizeRelocate(
+                        toX(block.start()),
+                        rowY + (rowHeight - blockHeight) / 2,
+                        Math.max(1, block.length() * scale),
+                        blockHeight
+                );
+            }
+        }
+        for(int i = usedBlocks; i < blockPool.size(); i++) blockPool.get(i).setVisible(false);
+        for(int i = usedLabels; i < labelPool.size(); i++) labelPool.get(i).setVisible(false);
+    }
+
+    //Geometry of the view, in the coordinates of the plot (blocks) or header (row labels) panes:
+
+    protected Pane getPlot() {
+        return plot;
+    }
+
+    protected Pane getHeader() {
+        return header;
+    }
+
+    protected double getScale() {
+        return scale;
+    }
+
+    protected double getRowHeight() {
+        return rowHeight;
+    }
+
+    protected double getBlockHeight() {
+        return blockHeight;
+    }
+
+    protected double toX(double time) {
+        return time * scale - hBar.getValue();
+    }
+
+    protected double toTime(double x) {
+        return (x + hBar.getValue()) / scale;
+    }
+
+    protected double toY(int position) {
+        return position * rowHeight - vBar.getValue();
+    }
+
+    /**
+     * @return the position of the row at a given y, which may be out of the rows
+     */
+    protected int toPosition(double y) {
+        return (int) Math.floor((y + vBar.getValue()) / rowHeight);
+    }
+
+    /**
+     * @return the row displayed at a position
+     */
+    protected int rowAt(int position) {
+        return order[position];
+    }
+
+    protected String rowName(int row) {
+        return rowNames[row];
+    }
+
+    /**
+     * @return the index of the first block of a row that may end at or after a time, blocks being sorted by start
+     */
+    protected int firstVisibleBlock(int row, double time) {
+        List<Block> rowBlocks = getBlocks(row);
+        return firstStartingFrom(rowBlocks, time - maxLengths[row]);
+    }
+
+    //Index of the first block starting at or after a time.
+    private static int firstStartingFrom(List<Block> rowBlocks, double time) {
+        int lo = 0, hi = rowBlocks.size();
+        while(lo < hi){
+            int mid = (lo + hi) >>> 1;
+            if(rowBlocks.get(mid).start() < time) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private StackPane blockAt(int i) {
+        if(i == blockPool.size()){
+            StackPane node = new StackPane();
+            node.setManaged(false);
+            blockPool.add(node);
+            plot.getChildren().add(node);
+        }
+        StackPane node = blockPool.get(i);
+        node.setVisible(true);
+        return node;
+    }
+
+    private Label labelAt(int i) {
+        if(i == labelPool.size()){
+            Label label = new Label();
+            label.setManaged(false);
+            label.setTextFill(Color.CHOCOLATE);
+            label.setStyle("-fx-alignment: center-right;");
+            labelPool.add(label);
+            header.getChildren().add(label);
+        }
+        Label label = labelPool.get(i);
+        label.setVisible(true);
+        return label;
+    }
+
+    //Tooltips are kept with the pooled nodes and only installed on the nodes of blocks with a label.
+    private static void setTooltip(StackPane node, String label) {
+        Tooltip tooltip = (Tooltip) node.getProperties().get(Tooltip.class);
+        if(label.isBlank()){
+            if(tooltip != null){
+                Tooltip.uninstall(node, tooltip);
+                node.getProperties().remove(Tooltip.class);
+            }
+        } else if(tooltip == null){
+            tooltip = new Tooltip(label);
+            tooltip.setShowDelay(new Duration(0));
+            Tooltip.install(node, tooltip);
+            node.getProperties().put(Tooltip.class, tooltip);
+        } else if(!tooltip.getText().equals(label)) tooltip.setText(label);
+    }
+
+    private void drawAxis(double plotX, double plotWidth, double width, double timeStart) {
+        axis.setLayoutX(0);
+        axis.setLayoutY(TITLE_HEIGHT);
+        axis.setWidth(width);
+        axis.setHeight(AXIS_HEIGHT);
+        GraphicsContext gc = axis.getGraphicsContext2D();
+        gc.clearRect(0, 0, width, AXIS_HEIGHT);
+        gc.setStroke(Color.GRAY);
+        gc.setFill(Color.CHOCOLATE);
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.TOP);
+        gc.strokeLine(plotX, AXIS_HEIGHT - 0.5, plotX + plotWidth, AXIS_HEIGHT - 0.5);
+
+        double step = tickStep(TICK_SPACING / scale);
+        for(double t = Math.ceil(timeStart / step) * step; (t - timeStart) * scale <= plotWidth; t += step){
+            double x = plotX + (t - timeStart) * scale;
+            gc.strokeLine(x, AXIS_HEIGHT - 6, x, AXIS_HEIGHT);
+            gc.fillText(String.valueOf((long) t), x, 2);
+        }
+    }
+
+    //Smallest step of the form 1, 2 or 5 times a power of 10 greater or equal to a minimum step.
+    private static double tickStep(double min) {
+        double power = Math.pow(10, Math.floor(Math.log10(Math.max(min, 1))));
+        for(double factor : new double[]{1, 2, 5, 10}) if(factor * power >= min) return factor * power;
+        return 10 * power;
+    }
+
+    private void handleScroll(ScrollEvent event) {
+        if(event.isControlDown()){
+            if(event.getDeltaY() == 0) return;
+            double plotWidth = plot.getWidth();
+            double mouseX = clamp(event.getX() - plot.getLayoutX(), 0, plotWidth);
+            double time = (hBar.getValue() + mouseX) / scale; //Time under the mouse, kept in place by the zoom.
+            double minScale = Math.min(1, plotWidth / horizon);
+            scale = clamp(event.getDeltaY() > 0 ? scale * ZOOM_FACTOR : scale / ZOOM_FACTOR, minScale, MAX_SCALE);
+            hBar.setMax(Math.max(0, horizon * scale - plotWidth));
+            hBar.setValue(clamp(time * scale - mouseX, 0, hBar.getMax()));
+            requestLayout();
+        } else if(event.isShiftDown()){
+            double delta = event.getDeltaX() != 0 ? event.getDeltaX() : event.getDeltaY();
+            hBar.setValue(clamp(hBar.getValue() - delta, hBar.getMin(), hBar.getMax()));
+        } else {
+            vBar.setValue(clamp(vBar.getValue() - event.getDeltaY(), vBar.getMin(), vBar.getMax()));
+        }
+        event.consume();
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -1,32 +1,39 @@
 package org.adsp.visu.runnable;
 
-import ilog.cp.IloCP;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
-import javafx.collections.FXCollections;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.chart.CategoryAxis;
-import javafx.scene.chart.Chart;
 import javafx.scene.chart.NumberAxis;
-import javafx.scene.chart.XYChart;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ToolBar;
 import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
+import org.adsp.Launcher;
+import org.adsp.cpoptimizer.AbstractOptionalIntervalModel;
 import org.adsp.cpoptimizer.OptionalIntervalModel;
 import org.adsp.cpoptimizer.OptionalIntervalModelRelaxed;
 import org.adsp.datamodel.*;
-import org.adsp.tools.TimeWindow;
+import org.adsp.tools.DataFiles;
 import org.adsp.tools.json.JsonReader;
-import org.adsp.visu.charts.CumulFunctionChart;
-import org.adsp.visu.charts.GanttChart;
-import org.adsp.visu.charts.GanttChart.*;
+import org.adsp.visu.charts.*;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Visu extends Application {
     //Parameters:
     private static Instance instance;
+    private static CompiledInstance compiled;
     private static String model;
     private static Solution solution;
     private static int failLimit = Integer.MAX_VALUE;
@@ -37,26 +44,42 @@ public class Visu extends Application {
     private static String search = "Auto";
     private static int nWorkers = 1;
     private static String out = "default/";
+    private static double checkpointInterval = 0;
+    private static String resume = null;
+    private static double solutionInterval = 0;
+    private static boolean solutionsByReference = false;
+    private static String chartRenderer = "nodes"; //Renderer of the charts: nodes or canvas.
 
     //Visualisation parameters:
     public static final int WINDOW_WIDTH = 1920;
     public static final int WINDOW_HEIGHT = 1080;
     public static final int ACTIVITY_HEIGHT = 20;
     public static final int CUMUL_CHART_HEIGHT = 200;
+    public static final long FRAME_INTERVAL = 200_000_000; //Minimum time between two renderings of solutions (in ns).
+
+    //Search:
+    private static AbstractOptionalIntervalModel solver;
+    private static ExecutorService solverExecutor; //Runs the search off the JavaFX application thread.
+    private static final AtomicReference<Solution> pendingSolution = new AtomicReference<>(); //Last solution not rendered yet.
+    private static AnimationTimer renderer; //Renders the last solution found at most once per frame interval.
+    private static Button cancelButton;
+    private static Label searchStatus;
 
     //Data helpers:
-    private static final Map<String, Integer> opCardToId = new HashMap<>();
-    private static XYChart.Data<Number, String>[] operationsData;
-    private static List<Integer>[] resourcesAssigned;
     private static final List<Activity> afActivities = new ArrayList<>();
     private static final List<Activity> lrActivities = new ArrayList<>();
 
+    //Displayed solution, used to only update the parts of the charts that change with each new solution:
+    private static Activity[] shownActivities; //By operation, null if the operation is not scheduled.
+    private static List<Assignment>[] shownAssignments; //By operation, null if no resource is assigned.
+    private static int shownMakespan = -1;
+
     //Charts:
-    private static GanttChart<Number, String> operationsGant;
-    private static GanttChart<Number, String> resourcesGant;
-    private static CumulFunctionChart balanceAFChart;
-    private static CumulFunctionChart balanceLRChart;
-    private static CumulFunctionChart[] occupancyCharts;
+    private static VirtualGanttChart operationsGant;
+    private static VirtualGanttChart resourcesGant;
+    private static StepChart balanceAFChart;
+    private static StepChart balanceLRChart;
+    private static StepChart[] occupancyCharts;
 
     @Override public void start(Stage stage) {
         //Initializing visu:
@@ -67,138 +90,103 @@ public class Visu extends Application {
         //Launching model:
         switch(model){
             case "CPOOptInterModel":
-                OptionalIntervalModel solver = new OptionalIntervalModel(instance);
-                if(startSol){
-                    solver.setSolution(solution);
-                    solver.setStartSol(true);
-                }
-                if(timeLimit < Integer.MAX_VALUE) solver.setTimeLimit(timeLimit);
-                if(timeLimit2 < Integer.MAX_VALUE) solver.setSecondTimeLimit(timeLimit2);
-                if(failLimit < Integer.MAX_VALUE) solver.setFailLimit(failLimit);
-                if(nWorkers != 4) solver.setWorkers(nWorkers);
-                solver.setOutputPath(out + search + "/");
-                solver.setOnSolution(Visu::onSolution);
-                switch(search){
-                    case "LEX-DF":
-                        solver.setSearchType(IloCP.ParameterValues.DepthFirst);
-                        solver.lexSearch();
-                        break;
-                    case "LEX-FD":
-                        solver.setFailureDirected(true);
-                        solver.lexSearch();
-                        break;
-                    case "ILEX-AUTO":
-                        solver.invertedLexSearch();
-                        break;
-                    case "ILEX-DF":
-                        solver.setSearchType(IloCP.ParameterValues.DepthFirst);
-                        solver.invertedLexSearch();
-                        break;
-                    case "ILEX-FD":
-                        solver.setFailureDirected(true);
-                        solver.invertedLexSearch();
-                        break;
-                    case "MK-AUTO":
-                        solver.makespanSearch();
-                        break;
-                    case "MK-DF":
-                        solver.setSearchType(IloCP.ParameterValues.DepthFirst);
-                        solver.makespanSearch();
-                        break;
-                    case "MK-FD":
-                        solver.setFailureDirected(true);
-                        solver.makespanSearch();
-                        break;
-                    case "CST-AUTO":
-                        solver.costSearch();
-                        break;
-                    case "CST-DF":
-                        solver.setSearchType(IloCP.ParameterValues.DepthFirst);
-                        solver.costSearch();
-                        break;
-                    case "CST-FD":
-                        solver.setFailureDirected(true);
-                        solver.costSearch();
-                        break;
-                    default:
-                        solver.lexSearch();
-                }
-                solver.close();
+                solver = new OptionalIntervalModel(instance);
                 break;
             case "CPOOptInterModelRelax":
-                OptionalIntervalModelRelaxed solverRelaxed = new OptionalIntervalModelRelaxed(instance);
-                if(startSol){
-                    solverRelaxed.setSolution(solution);
-                    solverRelaxed.setStartSol(true);
-                }
-                if(timeLimit < Integer.MAX_VALUE) solverRelaxed.setTimeLimit(timeLimit);
-                if(timeLimit2 < Integer.MAX_VALUE) solverRelaxed.setSecondTimeLimit(timeLimit2);
-                if(failLimit < Integer.MAX_VALUE) solverRelaxed.setFailLimit(failLimit);
-                if(nWorkers != 4) solverRelaxed.setWorkers(nWorkers);
-                solverRelaxed.setOutputPath(out + search + "/");
-                solverRelaxed.setOnSolution(Visu::onSolution);
-                switch(search){
-                    case "LEX-DF":
-                        solverRelaxed.setSearchType(IloCP.ParameterValues.DepthFirst);
-                        solverRelaxed.lexSearch();
-                        break;
-                    case "LEX-FD":
-                        solverRelaxed.setFailureDirected(true);
-                        solverRelaxed.lexSearch();
-                        break;
-                    case "ILEX-AUTO":
-                        solverRelaxed.invertedLexSearch();
-                        break;
-                    case "ILEX-DF":
-                        solverRelaxed.setSearchType(IloCP.ParameterValues.DepthFirst);
-                        solverRelaxed.invertedLexSearch();
-                        break;
-                    case "ILEX-FD":
-                        solverRelaxed.setFailureDirected(true);
-                        solverRelaxed.invertedLexSearch();
-                        break;
-                    case "MK-AUTO":
-                        solverRelaxed.makespanSearch();
-                        break;
-                    case "MK-DF":
-                        solverRelaxed.setSearchType(IloCP.ParameterValues.DepthFirst);
-                        solverRelaxed.makespanSearch();
-                        break;
-                    case "MK-FD":
-                        solverRelaxed.setFailureDirected(true);
-                        solverRelaxed.makespanSearch();
-                        break;
-                    case "CST-AUTO":
-                        solverRelaxed.costSearch();
-                        break;
-                    case "CST-DF":
-                        solverRelaxed.setSearchType(IloCP.ParameterValues.DepthFirst);
-                        solverRelaxed.costSearch();
-                        break;
-                    case "CST-FD":
-                        solverRelaxed.setFailureDirected(true);
-                        solverRelaxed.costSearch();
-                        break;
-                    default:
-                        solverRelaxed.lexSearch();
-                }
-                solverRelaxed.close();
+                solver = new OptionalIntervalModelRelaxed(instance);
                 break;
             case "InstanceStats":
                 System.out.println("Characteristics of instance " + instance.name());
                 System.out.println("Number of operations " + instance.nOps());
                 System.out.println("Makespan lower bound " + instance.makespanLB());
                 System.out.println("Cost lower bound " + instance.costLB());
-                break;
+                return;
             case "DisplaySol": {
                 displaySol();
-                break;
+                return;
             }
+            default:
+                System.out.println("Model " + model + " is not recognized!");
+                return;
         }
+
+        if(resume != null){
+            Checkpoint checkpoint = JsonReader.readCheckpointFile(resume + "/" + instance.name() + ".json");
+            if(checkpoint.instance().equals("error")){
+                solver.close();
+                return;
+            }
+            if(checkpoint.isFor(instance)) solver.resume(checkpoint);
+            else System.out.println("Checkpoint was taken on another instance or on a different version of instance " + instance.name() + ". Starting from scratch.");
+        } else if(startSol){
+            solver.setSolution(solution);
+            solver.setStartSol(true);
+        }
+        if(timeLimit < Integer.MAX_VALUE) solver.setTimeLimit(timeLimit);
+        if(timeLimit2 < Integer.MAX_VALUE) solver.setSecondTimeLimit(timeLimit2);
+        if(failLimit < Integer.MAX_VALUE) solver.setFailLimit(failLimit);
+        if(nWorkers != 4) solver.setWorkers(nWorkers);
+        if(checkpointInterval > 0) solver.setCheckpointInterval(checkpointInterval);
+        if(solutionInterval != 0) solver.setSolutionInterval(solutionInterval);
+        if(solutionsByReference) solver.setSolutionsByReference(true);
+        solver.setOutputPath(out + search + "/");
+        solver.setOnSolution(Visu::onSolution);
+        startSearch();
+    }
+
+    @Override public void stop() {
+        //Stopping the search when the windows are closed, the results are still written by the solver thread:
+        if(solver != null) solver.cancel();
+        if(solverExecutor != null) solverExecutor.shutdown();
+    }
+
+    //Runs the search in the background while solutions are rendered on the JavaFX application thread.
+    private static void startSearch(){
+        renderer = new AnimationTimer() {
+            private long lastFrame = 0;
+
+            @Override
+            public void handle(long now) {
+                if(now - lastFrame < FRAME_INTERVAL) return;
+                if(renderPendingSolution()) lastFrame = now;
+            }
+        };
+        renderer.start();
+        cancelButton.setDisable(false);
+        searchStatus.setText("Search in progress");
+
+        solverExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "solver"));
+        solverExecutor.submit(() -> {
+            try {
+                Launcher.runSearch(solver, search);
+            } catch (RuntimeException e) {
+                System.out.println("Error: search failed");
+                e.printStackTrace();
+            } finally {
+                solver.close();
+                Platform.runLater(Visu::searchEnded);
+            }
+        });
+    }
+
+    private static void searchEnded(){
+        renderer.stop();
+        renderPendingSolution();
+        cancelButton.setDisable(true);
+        searchStatus.setText(solver.isCancelled() ? "Search cancelled" : "Search ended");
+    }
+
+    //Renders the last solution handed by the solver, if any. Must be called on the JavaFX application thread.
+    private static boolean renderPendingSolution(){
+        Solution sol = pendingSolution.getAndSet(null);
+        if(sol == null) return false;
+        solution = sol;
+        displaySol();
+        return true;
     }
 
     public static void main(String[] args) {
-        //Arguments: instance/sol model [-st -sil -t <time limit> -t2 <2nd time limit> -f <fail limit> -s <search> -n <n workers> -out <output path>]
+        //Arguments: instance/sol model [-st -sil -t <time limit> -t2 <2nd time limit> -f <fail limit> -s <search> -n <n workers> -out <output path> -cpt <checkpoint interval> -resume <checkpoint dir> -si <solution interval> -ref -render <nodes|canvas>]
         //Reading parameters:
         if(args.length < 2){
             System.out.println("No instance file path or model provided!");
@@ -243,17 +231,38 @@ public class Visu extends Application {
                     out = args[a+1];
                     a+=2;
                     break;
+                case "-cpt":
+                    checkpointInterval = Double.parseDouble(args[a+1]);
+                    a+=2;
+                    break;
+                case "-resume":
+                    resume = args[a+1];
+                    a+=2;
+                    break;
+                case "-ref":
+                    solutionsByReference = true;
+                    a++;
+                    break;
+                case "-render":
+                    chartRenderer = args[a+1];
+                    a+=2;
+                    break;
+                case "-si":
+                    solutionInterval = Double.parseDouble(args[a+1]);
+                    a+=2;
+                    break;
                 default:
                     System.out.println("Argument " + arg + " is not recognized and will be ignored.");
                     a++;
             }
         }
         boolean parseSol = startSol || model.equals("DisplaySol");
-        if(parseSol) solution = JsonReader.readSolutionFile(args[0]);
-        instance = parseSol ? solution.instance() : JsonReader.readInstanceFile(args[0]);
+        if(parseSol) solution = DataFiles.readSolutionFile(args[0]);
+        instance = parseSol ? solution.instance() : DataFiles.readInstanceFile(args[0]);
         if(instance == null || instance.id().equals("error")){
             return;
         }
+        compiled = instance.compiled();
         if(!instance.version().equals("0.4")){
             System.out.println("Incompatible instance format! Instance version is " + instance.version() + ", must be 0.4");
             return;
@@ -265,45 +274,34 @@ public class Visu extends Application {
             return;
         }
 
-        for(int i = 0; i < instance.operations().length; i++) opCardToId.put(instance.operations()[i].card(), i);
-        operationsData = new XYChart.Data[instance.operations().length];
-        resourcesAssigned = new List[instance.operations().length];
-        occupancyCharts = new CumulFunctionChart[instance.locations().length];
+        occupancyCharts = new StepChart[instance.locations().length];
 
         launch(args);
     }
 
     //Operations gant:
     private void initOps(Stage stage){
-        final NumberAxis xAxis = new NumberAxis();
-        xAxis.setLabel("Time");
-        xAxis.setTickLabelFill(Color.CHOCOLATE);
-
-        final CategoryAxis yAxis = new CategoryAxis();
-        yAxis.setLabel("Operation");
-        yAxis.setTickLabelFill(Color.CHOCOLATE);
-        yAxis.setTickLabelGap(10);
-
-        ArrayList<String> operationNames = new ArrayList<>();
-        //Iterating from the end to display operation names in the correct order:
-        for(int i = instance.operations().length-1; i >= 0; i--) operationNames.add(instance.operations()[i].card());
-        yAxis.setCategories(FXCollections.observableArrayList(operationNames));
-
-        operationsGant = new GanttChart<>(xAxis, yAxis);
-        operationsGant.setMinWidth(instance.maxTime());
-        operationsGant.setMinHeight(instance.operations().length * ACTIVITY_HEIGHT);
+        //Only the operations and time range in view are rendered, the chart scrolls and zooms by itself:
+        operationsGant = chartRenderer.equals("canvas") ? new CanvasGanttChart() : new VirtualGanttChart();
+        operationsGant.setRows(Arrays.stream(instance.operations()).map(Operation::card).toList());
+        operationsGant.setHorizon(instance.maxTime());
+        operationsGant.setRowHeight(ACTIVITY_HEIGHT);
         operationsGant.setBlockHeight(ACTIVITY_HEIGHT);
         operationsGant.setTitle("Operations planning");
-        operationsGant.setLegendVisible(false);
-
-        //chart.getStylesheets().add(getClass().getResource("ganttchart.css").toExternalForm());
         operationsGant.setStylesheet("ganttchart.css");
 
-        ScrollPane operationsPane = new ScrollPane(operationsGant);
-        operationsPane.setFitToWidth(true);
-        operationsPane.setFitToHeight(true);
-        operationsPane.setPannable(true);
-        Scene operations  = new Scene(operationsPane, WINDOW_WIDTH, WINDOW_HEIGHT);
+        //Search controls:
+        cancelButton = new Button("Cancel search");
+        cancelButton.setDisable(true);
+        cancelButton.setOnAction(event -> {
+            cancelButton.setDisable(true);
+            searchStatus.setText("Cancelling search");
+            solver.cancel();
+        });
+        searchStatus = new Label();
+        BorderPane operationsRoot = new BorderPane(operationsGant);
+        operationsRoot.setTop(new ToolBar(cancelButton, searchStatus));
+        Scene operations  = new Scene(operationsRoot, WINDOW_WIDTH, WINDOW_HEIGHT);
         stage.setScene(operations);
         stage.setTitle("Operations");
         stage.show();
@@ -311,36 +309,16 @@ public class Visu extends Application {
 
     //Resources assignation:
     private void initAssign(){
-        final NumberAxis resXAxis = new NumberAxis();
-        resXAxis.setLabel("Time");
-        resXAxis.setTickLabelFill(Color.CHOCOLATE);
-
-        final CategoryAxis resYAxis = new CategoryAxis();
-        resYAxis.setLabel("Resource");
-        resYAxis.setTickLabelFill(Color.CHOCOLATE);
-        resYAxis.setTickLabelGap(10);
-
-        ArrayList<String> resourceNames = new ArrayList<>();
-        //Iterating from the end to display resources in the correct order:
-        for(int i = instance.resources().length-1; i >= 0; i--) resourceNames.add(instance.resources()[i].name());
-        resYAxis.setCategories(FXCollections.observableArrayList(resourceNames));
-
-        resourcesGant = new GanttChart<Number,String>(resXAxis,resYAxis);
-        resourcesGant.setMinWidth(instance.maxTime());
-        resourcesGant.setMinHeight(instance.resources().length * ACTIVITY_HEIGHT);
+        resourcesGant = chartRenderer.equals("canvas") ? new CanvasGanttChart() : new VirtualGanttChart();
+        resourcesGant.setRows(Arrays.stream(instance.resources()).map(Resource::name).toList());
+        resourcesGant.setHorizon(instance.maxTime());
+        resourcesGant.setRowHeight(ACTIVITY_HEIGHT);
         resourcesGant.setBlockHeight(ACTIVITY_HEIGHT);
         resourcesGant.setTitle("Resources assignation");
-        resourcesGant.setLegendVisible(false);
-
-        //chart.getStylesheets().add(getClass().getResource("ganttchart.css").toExternalForm());
         resourcesGant.setStylesheet("ganttchart.css");
 
-        ScrollPane resourcesPane = new ScrollPane(resourcesGant);
-        resourcesPane.setFitToWidth(true);
-        resourcesPane.setFitToHeight(true);
-        resourcesPane.setPannable(true);
         Stage assignationStage = new Stage();
-        Scene assignations = new Scene(resourcesPane, WINDOW_WIDTH, WINDOW_HEIGHT);
+        Scene assignations = new Scene(resourcesGant, WINDOW_WIDTH, WINDOW_HEIGHT);
         assignationStage.setScene(assignations);
         assignationStage.setTitle("Resources assignments");
         assignationStage.show();
@@ -357,10 +335,10 @@ public class Visu extends Application {
         final CategoryAxis balAFYAxis = new CategoryAxis();
         balAFYAxis.setLabel("Time");
         balAFYAxis.setTickLabelFill(Color.CHOCOLATE);
-        balanceAFChart = new CumulFunctionChart(instance.balanceAF(), -instance.balanceAF());
+        balanceAFChart = createStepChart(instance.balanceAF(), -instance.balanceAF());
         balanceAFChart.setTitle("Balance Aft - Forward");
-        balanceAFChart.setOnMouseClicked(this::handleChartClick); //Giving focus when mouse clicked
-        ScrollPane balAFPane = new ScrollPane(balanceAFChart);
+        balanceAFChart.setLimits(-instance.balanceAF(), instance.balanceAF());
+        ScrollPane balAFPane = new ScrollPane((Region) balanceAFChart);
         balAFPane.setMinHeight(CUMUL_CHART_HEIGHT);
         balAFPane.setFitToWidth(true);
         balAFPane.setFitToHeight(true);
@@ -374,10 +352,10 @@ public class Visu extends Application {
         final CategoryAxis balLRYAxis = new CategoryAxis();
         balLRYAxis.setLabel("Time");
         balLRYAxis.setTickLabelFill(Color.CHOCOLATE);
-        balanceLRChart = new CumulFunctionChart(instance.balanceLR(), -instance.balanceLR());
+        balanceLRChart = createStepChart(instance.balanceLR(), -instance.balanceLR());
         balanceLRChart.setTitle("Balance Left - Right");
-        balanceLRChart.setOnMouseClicked(this::handleChartClick); //Giving focus when mouse clicked
-        ScrollPane balLRPane = new ScrollPane(balanceLRChart);
+        balanceLRChart.setLimits(-instance.balanceLR(), instance.balanceLR());
+        ScrollPane balLRPane = new ScrollPane((Region) balanceLRChart);
         balLRPane.setMinHeight(CUMUL_CHART_HEIGHT);
         balLRPane.setFitToWidth(true);
         balLRPane.setFitToHeight(true);
@@ -392,11 +370,11 @@ public class Visu extends Application {
             final CategoryAxis yAxis = new CategoryAxis();
             yAxis.setLabel("Time");
             yAxis.setTickLabelFill(Color.CHOCOLATE);
-            CumulFunctionChart occupancyChart = new CumulFunctionChart(instance.locations()[loc].capacity()+1, 0);
+            StepChart occupancyChart = createStepChart(instance.locations()[loc].capacity()+1, 0);
             occupancyChart.setTitle("Occupancy of " + instance.locations()[loc].name());
+            occupancyChart.setLimits(0, instance.locations()[loc].capacity());
             occupancyCharts[loc] = occupancyChart;
-            occupancyChart.setOnMouseClicked(this::handleChartClick); //Giving focus when mouse clicked
-            ScrollPane occPane = new ScrollPane(occupancyChart);
+            ScrollPane occPane = new ScrollPane((Region) occupancyChart);
             occPane.setMinHeight(CUMUL_CHART_HEIGHT);
             occPane.setFitToWidth(true);
             occPane.setFitToHeight(true);
@@ -414,193 +392,238 @@ public class Visu extends Application {
         profileStage.show();
     }
 
+    //Cumulative chart drawn with the selected renderer:
+    private StepChart createStepChart(double maxValue, double minValue){
+        Region chart = chartRenderer.equals("canvas") ? new CanvasProfileChart(maxValue, minValue) : new CumulFunctionChart(maxValue, minValue);
+        chart.setOnMouseClicked(this::handleChartClick); //Giving focus when mouse clicked
+        return (StepChart) chart;
+    }
+
+    @SuppressWarnings("unchecked")
     public static void displaySol(){
         if(solution.activities().length > 0) {
             operationsGant.setTitle("Operations planning (makespan: " + solution.makespan() + ", cost: " + solution.cost() + ")");
             resourcesGant.setTitle("Resources assignation (makespan: " + solution.makespan() + ", cost: " + solution.cost() + ")");
-            displayResources();
-            displayOperations();
-            displayBalance();
-            displayOccupancy();
+
+            //Indexing the solution by operation:
+            int nOps = instance.operations().length;
+            Activity[] activities = new Activity[nOps];
+            List<Assignment>[] assignments = new List[nOps];
+            for(Activity act : solution.activities()) activities[act.operation()] = act;
+            for(Assignment assignment : solution.assignments()){
+                int op = assignment.operation();
+                if(assignments[op] == null) assignments[op] = new ArrayList<>();
+                assignments[op].add(assignment);
+            }
+
+            //Finding the changes since the displayed solution:
+            boolean all = shownActivities == null;
+            boolean makespanChanged = solution.makespan() != shownMakespan; //The profiles end at the makespan.
+            boolean[] changedOps = new boolean[nOps];
+            boolean[] changedRes = new boolean[instance.resources().length];
+            boolean[] changedLocs = new boolean[instance.locations().length];
+            boolean startsChanged = all;
+            boolean afChanged = all || makespanChanged;
+            boolean lrChanged = all || makespanChanged;
+            if(all) Arrays.fill(changedRes, true); //Unavailabilities are only added once.
+            for(int op = 0; op < nOps; op++){
+                boolean activityChanged = all || !Objects.equals(activities[op], shownActivities[op]);
+                boolean assignmentsChanged = all || !Objects.equals(assignments[op], shownAssignments[op]);
+                if(!activityChanged && !assignmentsChanged) continue;
+                changedOps[op] = true;
+                if(assignmentsChanged){
+                    if(!all && shownAssignments[op] != null) for(Assignment assignment : shownAssignments[op]) changedRes[assignment.resource()] = true;
+                    if(assignments[op] != null) for(Assignment assignment : assignments[op]) changedRes[assignment.resource()] = true;
+                }
+                if(activityChanged){
+                    startsChanged = true;
+                    changedLocs[compiled.location(op)] = true;
+                    if(compiled.mass(op) > 0) {
+                        if (compiled.isAft(op) || compiled.isForward(op)) afChanged = true;
+                        else if (compiled.isLeft(op) || compiled.isRight(op)) lrChanged = true;
+                    }
+                }
+            }
+            shownActivities = activities;
+            shownAssignments = assignments;
+            shownMakespan = solution.makespan();
+
+            displayResources(changedRes);
+            displayOperations(changedOps, startsChanged);
+            displayBalance(afChanged, lrChanged);
+            displayOccupancy(changedLocs, makespanChanged);
         } else System.out.println("Solution is empty. Nothing to display");
     }
 
     //Displaying operations:
-    private static void displayOperations(){
-        //Clearing previous data:
-        afActivities.clear();
-        lrActivities.clear();
-        operationsGant.getData().clear();
-
-        //Parsing activities:
-        for(Activity act : solution.activities()){
-            int op = act.operation();
+    private static void displayOperations(boolean[] changedOps, boolean startsChanged){
+        for(int op = 0; op < changedOps.length; op++) if(changedOps[op]){
+            operationsGant.clearRow(op);
+            Activity act = shownActivities[op];
+            if(act == null) continue;
             String card = instance.operations()[op].card();
 
             //Building label:
             StringBuilder label = new StringBuilder("Operation " + card + "\nResources assigned:");
-            if(resourcesAssigned[op] != null && !resourcesAssigned[op].isEmpty()){
-                for(int res: resourcesAssigned[op]) label.append("\n").append(instance.resources()[res].name());
+            if(shownAssignments[op] != null){
+                for(Assignment assignment : shownAssignments[op]) label.append("\n").append(instance.resources()[assignment.resource()].name());
             }
 
             //Adding data:
-            operationsData[op] = new XYChart.Data<>(
-                    act.start(),
-                    card,
-                    new TimeBlock( act.end() - act.start(), "status-green", label.toString())
-            );
+            operationsGant.addBlock(op, act.start(), act.end() - act.start(), "status-green", label.toString());
+        }
 
-            //Adding activity to balance lists if needed:
-            String zone = instance.locations()[instance.operations()[op].location()].zone();
-            if(instance.operations()[op].mass() > 0) {
-                if (zone.equals("AFT") || zone.equals("FWD")) afActivities.add(act);
-                else if (zone.equals("LH") || zone.equals("RH")) lrActivities.add(act);
+        //Sorting operations by start time on chart, starts and operations being packed in longs:
+        if(startsChanged){
+            long[] keys = new long[shownActivities.length];
+            for(int op = 0; op < keys.length; op++){
+                long start = shownActivities[op] == null ? 0 : shownActivities[op].start();
+                keys[op] = start << 32 | op;
             }
+            Arrays.sort(keys);
+            int[] order = new int[keys.length];
+            for(int pos = 0; pos < keys.length; pos++) order[pos] = (int) keys[pos];
+            operationsGant.setRowOrder(order);
         }
-
-        //Adding new data to chart:
-        operationsGant.addAll(Arrays.stream(operationsData).map(opData ->{
-            XYChart.Series<Number, String> opSeries = new XYChart.Series<>();
-            opSeries.getData().add(opData);
-            return opSeries;
-        }).toList());
-        CategoryAxis yAxis = (CategoryAxis) operationsGant.getYAxis();
-
-        //Sorting operations by start time on chart:
-        yAxis.getCategories().sort((op1, op2) ->
-                operationsData[opCardToId.get(op2)].getXValue().intValue() - operationsData[opCardToId.get(op1)].getXValue().intValue()
-        );
     }
 
     //Displaying resources:
-    private static void displayResources(){
-        //Clearing previous data:
-        for(List<Integer> list: resourcesAssigned) if(list != null) list.clear();
-        resourcesGant.getData().clear();
-
-        //Creating resources data series:
-        XYChart.Series<Number, String>[] resSeries = new XYChart.Series[instance.resources().length];
-        for(int r = 0; r < instance.resources().length; r++){
-            resSeries[r] = new XYChart.Series<>();
-        }
-
-        //Parsing assignments:
+    @SuppressWarnings("unchecked")
+    private static void displayResources(boolean[] changedRes){
+        //Assignments of the changed resources:
+        List<Assignment>[] resAssignments = new List[changedRes.length];
+        for(int res = 0; res < changedRes.length; res++) if(changedRes[res]) resAssignments[res] = new ArrayList<>();
         for(Assignment assignment: solution.assignments()){
-            int res = assignment.resource();
-            int op = assignment.operation();
-            resSeries[res].getData().add(new XYChart.Data<>(
-                    assignment.start(),
-                    instance.resources()[res].name(),
-                    new TimeBlock(
-                            assignment.end() - assignment.start(),
-                            "status-green",
-                            "Assigned to operation " + instance.operations()[op].card()
-                    )
-            ));
-            if(resourcesAssigned[op] == null) resourcesAssigned[op] = new ArrayList<>();
-            resourcesAssigned[op].add(res);
+            if(changedRes[assignment.resource()]) resAssignments[assignment.resource()].add(assignment);
         }
 
-        //Adding unavailabilies:
-        for(int res = 0; res < instance.resources().length; res++){
-            for(TimeWindow unav: instance.resources()[res].unavailable()) {
-                resSeries[res].getData().add(new XYChart.Data<>(
-                        unav.start(),
-                        instance.resources()[res].name(),
-                        new TimeBlock(unav.duration(), "status-red", "Unavailable")
-                ));
+        for(int res = 0; res < changedRes.length; res++) if(changedRes[res]){
+            resourcesGant.clearRow(res);
+            for(Assignment assignment : resAssignments[res]){
+                resourcesGant.addBlock(
+                        res,
+                        assignment.start(),
+                        assignment.end() - assignment.start(),
+                        "status-green",
+                        "Assigned to operation " + instance.operations()[assignment.operation()].card()
+                );
             }
-        }
 
-        resourcesGant.addAll(List.of(resSeries)); //Adding new data to chart
+            //Adding unavailabilies:
+            for(int u = 0; u < compiled.nUnavailable(res); u++) {
+                int start = compiled.unavailableStart(res, u);
+                resourcesGant.addBlock(res, start, compiled.unavailableEnd(res, u) - start, "status-red", "Unavailable");
+            }
+        }
     }
 
     //Displaying balance cumulative profiles:
-    private static void displayBalance(){
+    private static void displayBalance(boolean afChanged, boolean lrChanged){
+        if(!afChanged && !lrChanged) return;
+        afActivities.clear();
+        lrActivities.clear();
+        for(Activity act : shownActivities) if(act != null){
+            int op = act.operation();
+            if(compiled.mass(op) > 0) {
+                if (compiled.isAft(op) || compiled.isForward(op)) afActivities.add(act);
+                else if (compiled.isLeft(op) || compiled.isRight(op)) lrActivities.add(act);
+            }
+        }
+
         //Aft - forward balance:
-        balanceAFChart.clearData();
-        afActivities.sort(Comparator.comparingInt(Activity::start));
-        int[] afStarts = new int[afActivities.size()+2];
-        String[] afOps = new String[afActivities.size()+2];
-        double[] afMassValues = new double[afActivities.size()+2];
-        afStarts[0] = 0;
-        afOps[0] = "At dismantling start";
-        afMassValues[0] = 0;
-        for(int i = 1; i < afOps.length-1; i++){
-            Activity act = afActivities.get(i-1);
-            Operation op = instance.operations()[act.operation()];
-            String zone = instance.locations()[op.location()].zone();
-            afOps[i] = "Operation " + op.card();
-            afStarts[i] = act.start();
-            if(zone.equals("AFT")) afMassValues[i] = -op.mass();
-            else afMassValues[i] = op.mass();
+        if(afChanged){
+            balanceAFChart.clearData();
+            afActivities.sort(Comparator.comparingInt(Activity::start));
+            int[] afStarts = new int[afActivities.size()+2];
+            String[] afOps = new String[afActivities.size()+2];
+            double[] afMassValues = new double[afActivities.size()+2];
+            afStarts[0] = 0;
+            afOps[0] = "At dismantling start";
+            afMassValues[0] = 0;
+            for(int i = 1; i < afOps.length-1; i++){
+                Activity act = afActivities.get(i-1);
+                Operation op = instance.operations()[act.operation()];
+                afOps[i] = "Operation " + op.card();
+                afStarts[i] = act.start();
+                if(compiled.isAft(act.operation())) afMassValues[i] = -op.mass();
+                else afMassValues[i] = op.mass();
+            }
+            afStarts[afStarts.length-1] = solution.makespan();
+            afOps[afOps.length-1] = "At dismantling end";
+            afMassValues[afMassValues.length-1] = 0;
+            balanceAFChart.addSteps("Balance Aft - Forward", afStarts, afMassValues, afOps);
         }
-        afStarts[afStarts.length-1] = solution.makespan();
-        afOps[afOps.length-1] = "At dismantling end";
-        afMassValues[afMassValues.length-1] = 0;
-        balanceAFChart.addSteps("Balance Aft - Forward", afStarts, afMassValues, afOps);
 
         //Left - right balance:
-        balanceLRChart.clearData();
-        lrActivities.sort(Comparator.comparingInt(Activity::start));
-        int[] lrStarts = new int[lrActivities.size()+2];
-        String[] lrOps = new String[lrActivities.size()+2];
-        double[] lrMassValues = new double[lrActivities.size()+2];
-        lrStarts[0] = 0;
-        lrOps[0] = "At dismantling start";
-        lrMassValues[0] = 0;
-        for(int i = 1; i < lrOps.length-1; i++){
-            Activity act = lrActivities.get(i-1);
-            Operation op = instance.operations()[act.operation()];
-            String zone = instance.locations()[op.location()].zone();
-            lrOps[i] = "Operation " + op.card();
-            lrStarts[i] = act.start();
-            if(zone.equals("LH")) lrMassValues[i] = -op.mass();
-            else lrMassValues[i] = op.mass();
+        if(lrChanged){
+            balanceLRChart.clearData();
+            lrActivities.sort(Comparator.comparingInt(Activity::start));
+            int[] lrStarts = new int[lrActivities.size()+2];
+            String[] lrOps = new String[lrActivities.size()+2];
+            double[] lrMassValues = new double[lrActivities.size()+2];
+            lrStarts[0] = 0;
+            lrOps[0] = "At dismantling start";
+            lrMassValues[0] = 0;
+            for(int i = 1; i < lrOps.length-1; i++){
+                Activity act = lrActivities.get(i-1);
+                Operation op = instance.operations()[act.operation()];
+                lrOps[i] = "Operation " + op.card();
+                lrStarts[i] = act.start();
+                if(compiled.isLeft(act.operation())) lrMassValues[i] = -op.mass();
+                else lrMassValues[i] = op.mass();
+            }
+            lrStarts[lrStarts.length-1] = solution.makespan();
+            lrOps[lrOps.length-1] = "At dismantling end";
+            lrMassValues[lrMassValues.length-1] = 0;
+            balanceLRChart.addSteps("Balance Left - Right", lrStarts, lrMassValues, lrOps);
         }
-        lrStarts[lrStarts.length-1] = solution.makespan();
-        lrOps[lrOps.length-1] = "At dismantling end";
-        lrMassValues[lrMassValues.length-1] = 0;
-        balanceLRChart.addSteps("Balance Left - Right", lrStarts, lrMassValues, lrOps);
     }
 
-    private static void displayOccupancy(){
-        for(int loc = 0; loc < instance.locations().length; loc++){
-            if(occupancyCharts[loc] != null){
-                occupancyCharts[loc].clearData();
-                //Creating time steps for activities:
-                List<TimeStep> timeSteps = new ArrayList<>();
-                timeSteps.add(new TimeStep(0, 0, "At dismantling start"));
-                for(Activity act : solution.activities()){
-                    Operation op = instance.operations()[act.operation()];
-                    if(op.location() == loc){
-                        timeSteps.add(new TimeStep(act.start(), op.occupancy(), "Start of operation " + op.card()));
-                        timeSteps.add(new TimeStep(act.end(), -op.occupancy(), "End of operation " + op.card()));
-                    }
-                }
-                timeSteps.add(new TimeStep(solution.makespan(), 0, "At dismantling end"));
-                timeSteps.sort(Comparator.comparingInt(TimeStep::time)); //Sorting steps by time
-
-                //Adding data to chart:
-                occupancyCharts[loc].addSteps(
-                        "Occupancy " + instance.locations()[loc].name(),
-                        timeSteps.stream().mapToInt(TimeStep::time).toArray(),
-                        timeSteps.stream().mapToDouble(TimeStep::value).toArray(),
-                        timeSteps.stream().map(TimeStep::label).toArray(String[]::new)
-                );
+    @SuppressWarnings("unchecked")
+    private static void displayOccupancy(boolean[] changedLocs, boolean makespanChanged){
+        //Creating time steps of the changed locations in a single pass over the activities:
+        List<TimeStep>[] timeSteps = new List[changedLocs.length];
+        for(int loc = 0; loc < changedLocs.length; loc++){
+            if(occupancyCharts[loc] != null && (changedLocs[loc] || makespanChanged)){
+                timeSteps[loc] = new ArrayList<>();
+                timeSteps[loc].add(new TimeStep(0, 0, "At dismantling start"));
+            }
+        }
+        for(Activity act : shownActivities) if(act != null){
+            Operation op = instance.operations()[act.operation()];
+            List<TimeStep> steps = timeSteps[op.location()];
+            if(steps != null){
+                steps.add(new TimeStep(act.start(), op.occupancy(), "Start of operation " + op.card()));
+                steps.add(new TimeStep(act.end(), -op.occupancy(), "End of operation " + op.card()));
             }
         }
+
+        for(int loc = 0; loc < timeSteps.length; loc++){
+            List<TimeStep> steps = timeSteps[loc];
+            if(steps == null) continue;
+            steps.add(new TimeStep(solution.makespan(), 0, "At dismantling end"));
+            steps.sort(Comparator.comparingInt(TimeStep::time)); //Sorting steps by time
+
+            //Adding data to chart:
+            occupancyCharts[loc].clearData();
+            occupancyCharts[loc].addSteps(
+                    "Occupancy " + instance.locations()[loc].name(),
+                    steps.stream().mapToInt(TimeStep::time).toArray(),
+                    steps.stream().mapToDouble(TimeStep::value).toArray(),
+                    steps.stream().map(TimeStep::label).toArray(String[]::new)
+            );
+        }
     }
 
+    //Called by the solver thread: the solution replaces the one waiting to be rendered, if any.
     public static void onSolution(Solution sol){
-        solution = sol;
-        displaySol();
+        pendingSolution.set(sol);
     }
 
     private void handleChartClick(MouseEvent event) {
         // Request focus when a chart is clicked
         Object source = event.getSource();
-        if(source instanceof Chart) ((Chart) source).requestFocus();
+        if(source instanceof Region) ((Region) source).requestFocus();
     }
 
     private record TimeStep(int time, int value, String label){}